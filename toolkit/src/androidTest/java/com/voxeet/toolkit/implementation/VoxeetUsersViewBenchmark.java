@@ -0,0 +1,130 @@
+package com.voxeet.toolkit.implementation;
+
+import android.app.Application;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.voxeet.sdk.json.ParticipantInfo;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.ParticipantViewAdapter;
+
+import org.greenrobot.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Main thread time of an update of the participants list, as driven by the VoxeetUsersView, with 50
+ * participants joining and leaving one at a time
+ * <p>
+ * An update is the submit of the participants to the adapter and the layout pass applying the differences
+ * computed in background. It must fit in a frame
+ */
+@RunWith(AndroidJUnit4.class)
+public class VoxeetUsersViewBenchmark {
+
+    private final static int PARTICIPANTS = 50;
+    private final static int ITERATIONS = 100;
+    private final static long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private Instrumentation instrumentation;
+    private ParticipantViewAdapter adapter;
+    private RecyclerView recyclerView;
+    private List<Participant> participants;
+
+    private volatile CountDownLatch dispatched;
+    private long elapsed;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Context context = InstrumentationRegistry.getTargetContext();
+        VoxeetToolkit.initialize((Application) context.getApplicationContext(), EventBus.getDefault());
+
+        participants = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            String id = "participant_" + i;
+            participants.add(new Participant(id, new ParticipantInfo(id, id, null)));
+        }
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                adapter = new ParticipantViewAdapter(context);
+                recyclerView = new RecyclerView(context);
+                recyclerView.setLayoutManager(new LinearLayoutManager(context, LinearLayoutManager.HORIZONTAL, false));
+                recyclerView.setAdapter(adapter);
+                adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                    @Override
+                    public void onItemRangeInserted(int positionStart, int itemCount) {
+                        if (null != dispatched) dispatched.countDown();
+                    }
+
+                    @Override
+                    public void onItemRangeRemoved(int positionStart, int itemCount) {
+                        if (null != dispatched) dispatched.countDown();
+                    }
+                });
+
+                adapter.setUsers(participants);
+                adapter.updateUsers();
+                layout();
+            }
+        });
+    }
+
+    @Test
+    public void updateFitsInAFrame() throws InterruptedException {
+        for (int i = 0; i < ITERATIONS; i++) {
+            //a participant leaves then joins back
+            final List<Participant> users = new ArrayList<>(participants);
+            if (i % 2 == 0) users.remove(i % PARTICIPANTS);
+
+            dispatched = new CountDownLatch(1);
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    adapter.setUsers(users);
+                    adapter.updateUsers();
+                    elapsed += SystemClock.elapsedRealtimeNanos() - start;
+                }
+            });
+
+            assertTrue("the differences were not dispatched", dispatched.await(5, TimeUnit.SECONDS));
+
+            instrumentation.runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    layout();
+                    elapsed += SystemClock.elapsedRealtimeNanos() - start;
+                }
+            });
+        }
+
+        long perUpdate = elapsed / ITERATIONS;
+        assertTrue("an update took " + TimeUnit.NANOSECONDS.toMicros(perUpdate) + " us", perUpdate < FRAME_NANOS);
+    }
+
+    private void layout() {
+        int width = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int height = View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY);
+        recyclerView.measure(width, height);
+        recyclerView.layout(0, 0, recyclerView.getMeasuredWidth(), recyclerView.getMeasuredHeight());
+    }
+}
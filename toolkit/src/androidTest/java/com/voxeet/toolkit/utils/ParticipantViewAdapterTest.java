@@ -0,0 +1,138 @@
+package com.voxeet.toolkit.utils;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.voxeet.sdk.json.ParticipantInfo;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+
+import org.greenrobot.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binds of the participant cells, on the device
+ * <p>
+ * The only allocations expected while the participants are updated are done by submit() : the list of
+ * items and one ParticipantViewItem per participant, plus the AlphaAnimation of a cell displayed for
+ * the first time by a full bind. Rebinding a holder with a payload must not allocate anything, in
+ * particular no listener, those are created once with the holder.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParticipantViewAdapterTest {
+
+    private final static int ITERATIONS = 100;
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    private ParticipantViewAdapter adapter;
+    private CountingFrameLayout cell;
+    private ParticipantViewAdapter.ViewHolder holder;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        VoxeetToolkit.initialize((Application) context.getApplicationContext(), EventBus.getDefault());
+
+        adapter = new ParticipantViewAdapter(context);
+        adapter.setUsers(Arrays.asList(participant("first"), participant("second")));
+        //the first list is given synchronously by the differ
+        adapter.updateUsers();
+
+        cell = new CountingFrameLayout(context);
+        LayoutInflater.from(context).inflate(R.layout.view_participant_view_cell, cell, true);
+        holder = adapter.new ViewHolder(cell);
+    }
+
+    @Test
+    @UiThreadTest
+    public void listenersAreSetOnceByTheHolder() {
+        adapter.onBindViewHolder(holder, 0);
+        adapter.onBindViewHolder(holder, 1);
+        adapter.onBindViewHolder(holder, 0, payloads(ParticipantPayload.NAME, ParticipantPayload.SELECTION));
+
+        assertEquals(1, cell.clickListeners);
+        assertEquals(1, cell.longClickListeners);
+        assertSame(holder, cell.clickListener);
+        assertSame(holder, cell.longClickListener);
+    }
+
+    @Test
+    @UiThreadTest
+    public void payloadRebindDoesNotAllocate() {
+        List<Object> payloads = payloads(ParticipantPayload.NAME, ParticipantPayload.ACTIVE_STATE,
+                ParticipantPayload.SELECTION);
+
+        adapter.onBindViewHolder(holder, 0);
+        //the framework caches the resources of the cell on the first rebind
+        adapter.onBindViewHolder(holder, 0, payloads);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ITERATIONS; i++) adapter.onBindViewHolder(holder, 0, payloads);
+        Debug.stopAllocCounting();
+        int allocated = Debug.getThreadAllocCount();
+
+        //a listener per rebind would give at least ITERATIONS objects
+        assertTrue("allocated " + allocated + " objects for " + ITERATIONS + " rebinds", allocated < ITERATIONS);
+    }
+
+    private static List<Object> payloads(ParticipantPayload... payloads) {
+        int mask = 0;
+        for (ParticipantPayload payload : payloads) mask |= payload.flag();
+        return Collections.<Object>singletonList(mask);
+    }
+
+    private static Participant participant(String id) {
+        return new Participant(id, new ParticipantInfo(id, id, null));
+    }
+
+    /**
+     * Cell counting the listeners set on it
+     */
+    private static class CountingFrameLayout extends FrameLayout {
+        private int clickListeners;
+        private int longClickListeners;
+        private View.OnClickListener clickListener;
+        private View.OnLongClickListener longClickListener;
+
+        private CountingFrameLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setOnClickListener(View.OnClickListener listener) {
+            clickListeners++;
+            clickListener = listener;
+            super.setOnClickListener(listener);
+        }
+
+        @Override
+        public void setOnLongClickListener(View.OnLongClickListener listener) {
+            longClickListeners++;
+            longClickListener = listener;
+            super.setOnLongClickListener(listener);
+        }
+    }
+}
@@ -18,7 +18,6 @@ import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
 
-import com.squareup.picasso.Picasso;
 import com.voxeet.audio.AudioRoute;
 import com.voxeet.promise.Promise;
 import com.voxeet.promise.solve.ErrorPromise;
@@ -41,6 +40,7 @@ import com.voxeet.sdk.utils.AndroidManifest;
 import com.voxeet.sdk.utils.AudioType;
 import com.voxeet.toolkit.R;
 import com.voxeet.toolkit.application.VoxeetApplication;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.utils.LoadLastSavedOverlayStateEvent;
 import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
 
@@ -187,11 +187,8 @@ public class DefaultIncomingCallActivity extends AppCompatActivity implements In
 
                     mUsername.setText(mIncomingBundleChecker.getUserName());
                     try {
-                        Picasso.get()
-                                .load(mIncomingBundleChecker.getAvatarUrl())
-                                .placeholder(R.drawable.default_avatar)
-                                .error(R.drawable.default_avatar)
-                                .into(mAvatar);
+                        VoxeetToolkit.getInstance().getAvatarLoader().load(mIncomingBundleChecker.getAvatarUrl(),
+                                mAvatar.getLayoutParams().width, mAvatar);
                     } catch (Exception e) {
 
                     }
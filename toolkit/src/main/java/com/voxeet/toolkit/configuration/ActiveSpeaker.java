@@ -0,0 +1,36 @@
+package com.voxeet.toolkit.configuration;
+
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+
+/**
+ * Hold the Configuration for the detection of the active speaker from the audio levels
+ */
+@Annotate
+public class ActiveSpeaker {
+
+    @NoDocumentation
+    public ActiveSpeaker() {
+
+    }
+
+    /**
+     * Minimum delay in milliseconds between two evaluations of the active speaker
+     */
+    public long samplingRate = 200;
+
+    /**
+     * Minimum audio level, between 0 and 1, for a participant to be considered as speaking
+     */
+    public double speakingThreshold = 0.02;
+
+    /**
+     * Margin by which a participant must be louder than the active speaker to replace it
+     */
+    public double hysteresis = 0.05;
+
+    /**
+     * Minimum time in milliseconds a participant stays the active speaker before it can be replaced
+     */
+    public long minimumHoldTime = 1500;
+}
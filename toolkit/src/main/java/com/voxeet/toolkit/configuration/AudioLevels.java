@@ -0,0 +1,21 @@
+package com.voxeet.toolkit.configuration;
+
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+
+/**
+ * Hold the Configuration for the sampling of the audio levels displayed by the views
+ */
+@Annotate
+public class AudioLevels {
+
+    @NoDocumentation
+    public AudioLevels() {
+
+    }
+
+    /**
+     * Delay in milliseconds between two samplings of the audio levels of every participant
+     */
+    public long samplingRate = 100;
+}
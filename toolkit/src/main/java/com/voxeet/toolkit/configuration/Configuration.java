@@ -29,4 +29,29 @@ public class Configuration {
      * Hold the Overlay configuration instance for this specific Configuration holder
      */
     public final Overlay Overlay = new Overlay();
+
+    /**
+     * Hold the Updates configuration instance for this specific Configuration holder
+     */
+    public final Updates Updates = new Updates();
+
+    /**
+     * Hold the ActiveSpeaker configuration instance for this specific Configuration holder
+     */
+    public final ActiveSpeaker ActiveSpeaker = new ActiveSpeaker();
+
+    /**
+     * Hold the AudioLevels configuration instance for this specific Configuration holder
+     */
+    public final AudioLevels AudioLevels = new AudioLevels();
+
+    /**
+     * Hold the Gallery configuration instance for this specific Configuration holder
+     */
+    public final Gallery Gallery = new Gallery();
+
+    /**
+     * Hold the Viewport configuration instance for this specific Configuration holder
+     */
+    public final Viewport Viewport = new Viewport();
 }
@@ -0,0 +1,26 @@
+package com.voxeet.toolkit.configuration;
+
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+
+/**
+ * Hold the Configuration for the gallery mode of the conference view
+ */
+@Annotate
+public class Gallery {
+
+    @NoDocumentation
+    public Gallery() {
+
+    }
+
+    /**
+     * Display the participants in a grid instead of the selected participant when the view is expanded
+     */
+    public boolean enabled = false;
+
+    /**
+     * Maximum number of videos rendered at the same time, 0 to use the limit of the device
+     */
+    public int maxVideoTiles = 0;
+}
@@ -23,4 +23,11 @@ public class Overlay {
      * Set the background color when the overlay is minized
      */
     public Integer background_minimized_color = null;
+
+    /**
+     * Animate the expansion and the minimization by scaling and moving the overlay, its real size being
+     * only applied once the animation ends. The content is stretched during the animation, which
+     * prevents the whole conference view to be measured and laid out on each frame
+     */
+    public boolean transform_animation = false;
 }
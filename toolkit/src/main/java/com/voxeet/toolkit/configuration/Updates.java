@@ -0,0 +1,22 @@
+package com.voxeet.toolkit.configuration;
+
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+
+/**
+ * Hold the Configuration for the way the conference events are dispatched to the views
+ */
+@Annotate
+public class Updates {
+
+    @NoDocumentation
+    public Updates() {
+
+    }
+
+    /**
+     * Maximum time in milliseconds an event can be held to be coalesced with the following ones.
+     * The events are always applied on a frame, 0 to apply them on the next frame.
+     */
+    public long maxLatency = 50;
+}
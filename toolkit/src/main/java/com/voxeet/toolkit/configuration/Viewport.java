@@ -0,0 +1,26 @@
+package com.voxeet.toolkit.configuration;
+
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+
+/**
+ * Hold the Configuration of the attachment of the renderers to the participant cells
+ */
+@Annotate
+public class Viewport {
+
+    @NoDocumentation
+    public Viewport() {
+
+    }
+
+    /**
+     * Fraction of a cell which must be visible for its video to be rendered, between 0 and 1
+     */
+    public float visibilityThreshold = 0.5f;
+
+    /**
+     * Delay in milliseconds before the video of a cell no longer visible enough is released
+     */
+    public long detachGracePeriod = 500;
+}
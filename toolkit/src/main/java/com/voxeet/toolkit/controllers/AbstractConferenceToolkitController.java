@@ -4,6 +4,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Parcelable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -11,6 +12,7 @@ import android.view.Gravity;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
+import com.voxeet.android.media.MediaStream;
 import com.voxeet.audio.AudioRoute;
 import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.events.sdk.ConferenceStatusUpdatedEvent;
@@ -27,12 +29,14 @@ import com.voxeet.sdk.json.ConferenceEnded;
 import com.voxeet.sdk.json.InvitationReceivedEvent;
 import com.voxeet.sdk.json.RecordingStatusUpdatedEvent;
 import com.voxeet.sdk.json.UserInvited;
+import com.voxeet.sdk.models.Conference;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
 import com.voxeet.sdk.models.v1.RecordingStatus;
 import com.voxeet.sdk.models.v1.UserProfile;
 import com.voxeet.sdk.services.AudioService;
 import com.voxeet.sdk.services.ConferenceService;
+import com.voxeet.sdk.services.SessionService;
 import com.voxeet.sdk.services.conference.information.ConferenceInformation;
 import com.voxeet.sdk.services.conference.information.ConferenceParticipantType;
 import com.voxeet.sdk.utils.AudioType;
@@ -45,7 +49,12 @@ import com.voxeet.toolkit.implementation.overlays.abs.AbstractVoxeetOverlayView;
 import com.voxeet.toolkit.providers.containers.IVoxeetOverlayViewProvider;
 import com.voxeet.toolkit.providers.logics.IVoxeetSubViewProvider;
 import com.voxeet.toolkit.providers.rootview.AbstractRootViewProvider;
+import com.voxeet.toolkit.utils.ActiveSpeakerEngine;
+import com.voxeet.toolkit.utils.ConferenceSnapshot;
+import com.voxeet.toolkit.utils.ConferenceSnapshotWorker;
+import com.voxeet.toolkit.utils.ConferenceUpdateScheduler;
 import com.voxeet.toolkit.utils.LoadLastSavedOverlayStateEvent;
+import com.voxeet.toolkit.utils.ToolkitUtils;
 import com.voxeet.toolkit.views.internal.VoxeetOverlayContainerFrameLayout;
 
 import org.greenrobot.eventbus.EventBus;
@@ -55,6 +64,7 @@ import org.greenrobot.eventbus.ThreadMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -106,6 +116,55 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
     private CopyOnWriteArrayList<Runnable> removeRunnables;
     private boolean showOnCreations = true; //it will make the overlay to be displayed on creating/created
 
+    /**
+     * Coalesce the participants and streams events before sending them to the main view
+     */
+    @NonNull
+    private ConferenceUpdateScheduler mUpdateScheduler;
+
+    /**
+     * Derive the snapshot from the events on the snapshot thread of the toolkit
+     */
+    @NonNull
+    private ConferenceSnapshotWorker mSnapshotWorker;
+
+    /**
+     * Last state of the conference received from the worker, published to the main view once per frame
+     */
+    @NonNull
+    private ConferenceSnapshot mSnapshot = ConferenceSnapshot.EMPTY;
+
+    @Nullable
+    private ConferenceSnapshot mPublishedSnapshot;
+
+    /**
+     * Participants dispatched by the current flush, handed to the worker once it ends
+     */
+    @NonNull
+    private ArrayList<Participant> mChangedParticipants = new ArrayList<>();
+
+    /**
+     * Participants invited from this device, merged with the participants of the conference
+     */
+    @NonNull
+    private List<Participant> mInvitedUsers = new ArrayList<>();
+
+    /**
+     * State of the participants list kept while the overlay is removed from the window, for instance when
+     * the activity is paused. It is only given back in the conference it was saved in
+     */
+    @Nullable
+    private String mSavedParticipantsConferenceId;
+
+    @Nullable
+    private Parcelable mSavedParticipantsState;
+
+    /**
+     * Set while a request to stop the outgoing call sound is waiting for the main thread
+     */
+    @NonNull
+    private AtomicBoolean mStopOutgoingCallPosted = new AtomicBoolean();
+
     private AbstractConferenceToolkitController() {
 
     }
@@ -118,6 +177,10 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
 
         mHandler = new Handler(Looper.getMainLooper());
 
+        mUpdateScheduler = new ConferenceUpdateScheduler(mMainViewUpdates);
+
+        mSnapshotWorker = new ConferenceSnapshotWorker(VoxeetToolkit.getInstance().getSnapshotLooper(), mSnapshotListener);
+
         mRootViewProvider = VoxeetToolkit.getInstance().getDefaultRootViewProvider();
 
         setViewRetainedOnLeave(false);
@@ -152,6 +215,11 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         List<Participant> list = VoxeetSdk.conference().getLastInvitationParticipants();
         mergeConferenceUsers(list);
 
+        //the new view starts from the current state until the worker publishes the next one
+        mPublishedSnapshot = null;
+        publishSnapshot();
+        updateSnapshot(getUsers());
+
         if (null != AudioService.getSoundManager()) {
             AudioService.getSoundManager().requestAudioFocus();
         }
@@ -453,6 +521,14 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
     private void reset() {
         //mMediaStreams = new HashMap<>();
         //mConferenceUsers = new ArrayList<>();
+        VoxeetToolkit.getInstance().getActiveSpeakerEngine().unregister(mActiveSpeakerListener);
+        mSnapshotWorker.reset();
+        mSnapshot = ConferenceSnapshot.EMPTY;
+        mPublishedSnapshot = null;
+        mChangedParticipants.clear();
+        mInvitedUsers = new ArrayList<>();
+        mSavedParticipantsConferenceId = null;
+        mSavedParticipantsState = null;
     }
 
     /**
@@ -571,6 +647,18 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onEvent(@NonNull ConferenceStatusUpdatedEvent event) {
         Log.d("DefaultRootViewProvider", "onEvent: state " + event.state + " " + mMainView);
+
+        //make sure the views are up to date before changing the state of the conference
+        switch (event.state) {
+            case LEFT:
+            case ERROR:
+                mUpdateScheduler.clear(null != event.conference ? event.conference.getId() : null);
+                break;
+            default:
+                if (null != event.conference) mUpdateScheduler.open(event.conference.getId());
+                mUpdateScheduler.flush();
+        }
+
         switch (event.state) {
             case CREATING:
                 onConferenceCreatingEvent(event);
@@ -648,6 +736,9 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
     public void onEvent(UserInvited invited) {
         List<UserProfile> profiles = invited.participants;
         List<Participant> users = getUsers();
+        prefetchAvatars(users);
+        updateSnapshot(users);
+
         if (mMainView != null) {
             mMainView.onConferenceUsersListUpdate(users);
         }
@@ -658,6 +749,8 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
     public void onEvent(final InvitationReceivedEvent event) {
         if (null != event && null != event.invitations) {
             List<Participant> users = getUsers();
+            updateSnapshot(users);
+
             if (mMainView != null) {
                 mMainView.onConferenceUsersListUpdate(users);
             }
@@ -670,8 +763,14 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
 
             displayView();
 
-            List<Participant> users = VoxeetSdk.conference().getParticipants();
+            List<Participant> users = getUsers();
             log("onEvent: ConferenceJoinedSuccessEvent");
+            updateSnapshot(users);
+
+            ActiveSpeakerEngine engine = VoxeetToolkit.getInstance().getActiveSpeakerEngine();
+            engine.register(mActiveSpeakerListener);
+            mSnapshotWorker.setActiveSpeaker(engine.getActiveSpeaker());
+
             if (mMainView != null) {
                 mMainView.onConferenceUsersListUpdate(users);
             }
@@ -702,43 +801,43 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         }
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
+    /*
+     * The participants and streams events are folded into the scheduler on the thread posting them, so that
+     * they are pending before any later status event is handled on the main thread. The scheduler dispatches
+     * them to the main view once per frame and the main view is checked when dispatching
+     */
+
+    @Subscribe(threadMode = ThreadMode.POSTING)
     public void onEvent(@NonNull ParticipantAddedEvent event) {
         log("onEvent: UserAddedEvent " + event.participant);
         Participant user = event.participant;
 
-        if (mMainView != null) mMainView.onUserAddedEvent(event.conference, user);
+        mUpdateScheduler.onParticipantAdded(event.conference, user);
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
+    @Subscribe(threadMode = ThreadMode.POSTING)
     public void onEvent(final ParticipantUpdatedEvent event) {
-        checkStopOutgoingCall();
+        checkStopOutgoingCall(event.participant);
 
         log("onEvent: UserUpdatedEvent " + event);
         Participant user = event.participant;
 
-        if (mMainView != null) mMainView.onUserUpdatedEvent(event.conference, user);
+        mUpdateScheduler.onParticipantUpdated(event.conference, user);
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
+    @Subscribe(threadMode = ThreadMode.POSTING)
     public void onEvent(StreamAddedEvent event) {
-        if (null != mMainView) {
-            mMainView.onStreamAddedEvent(event.conference, event.participant, event.mediaStream);
-        }
+        mUpdateScheduler.onStreamAdded(event.conference, event.participant, event.mediaStream);
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
+    @Subscribe(threadMode = ThreadMode.POSTING)
     public void onEvent(StreamUpdatedEvent event) {
-        if (null != mMainView) {
-            mMainView.onStreamUpdatedEvent(event.conference, event.participant, event.mediaStream);
-        }
+        mUpdateScheduler.onStreamUpdated(event.conference, event.participant, event.mediaStream);
     }
 
-    @Subscribe(threadMode = ThreadMode.MAIN)
+    @Subscribe(threadMode = ThreadMode.POSTING)
     public void onEvent(StreamRemovedEvent event) {
-        if (null != mMainView) {
-            mMainView.onStreamRemovedEvent(event.conference, event.participant, event.mediaStream);
-        }
+        mUpdateScheduler.onStreamRemoved(event.conference, event.participant, event.mediaStream);
     }
 
     private void onConferenceLeftEvent(ConferenceStatusUpdatedEvent event) {
@@ -786,6 +885,7 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         }
 
         reset();
+        mUpdateScheduler.clear(event.conferenceId);
         if (null != mMainView) {
             mMainView.onConferenceDestroyed();
         }
@@ -812,6 +912,7 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         VoxeetSdk.audio().stop();
 
         reset();
+        mUpdateScheduler.clear(event.conferenceId);
         if (null != mMainView) {
             mMainView.onConferenceDestroyed();
         }
@@ -840,8 +941,11 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
      */
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onEvent(@NonNull RecordingStatusUpdatedEvent event) {
+        boolean recording = RecordingStatus.RECORDING.name().equalsIgnoreCase(event.recordingStatus);
+        mSnapshotWorker.setRecording(recording);
+
         if (null != mMainView) {
-            mMainView.onRecordingStatusUpdated(RecordingStatus.RECORDING.name().equalsIgnoreCase(event.recordingStatus));
+            mMainView.onRecordingStatusUpdated(recording);
         }
     }
 
@@ -855,7 +959,11 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         if (null != mMainView) {
             ConferenceInformation currentConference = VoxeetSdk.conference().getCurrentConference();
             if (null != currentConference) {
-                mMainView.onConferenceUpdated(currentConference.getConference().getParticipants());
+                List<Participant> users = ToolkitUtils.mergeParticipants(
+                        currentConference.getConference().getParticipants(), mInvitedUsers);
+                updateSnapshot(users);
+
+                mMainView.onConferenceUpdated(users);
             }
             //mMainView.onConferenceUpdated(event.getEvent().getParticipants());
         }
@@ -888,40 +996,67 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         Log.d(TAG, value);
     }
 
+    /**
+     * Keep the invited participants to display them with the participants of the conference
+     * <p>
+     * The lists of the SDK are never modified, the merge is made in getUsers
+     *
+     * @param users the participants invited
+     */
     private void mergeConferenceUsers(@NonNull List<Participant> users) {
-        List<Participant> current_users = getUsers();
-        if (users != current_users) {
-            for (Participant user : users) {
-                if (null != user && !current_users.contains(user)) {
-                    log("init: adding " + user + " " + user.getInfo());
-                    current_users.add(user);
-                }
-            }
-        }
+        mInvitedUsers = ToolkitUtils.mergeParticipants(mInvitedUsers, users);
+        prefetchAvatars(users);
+        log("init: " + mInvitedUsers.size() + " invited participants");
     }
 
-    private void checkStopOutgoingCall() {
-        boolean found = false;
+    /**
+     * Load the avatars of the invited participants before the views display them
+     *
+     * @param users the participants invited
+     */
+    private void prefetchAvatars(@NonNull List<Participant> users) {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        if (null != toolkit) toolkit.getAvatarLoader().prefetch(users);
+    }
 
-        List<Participant> users = VoxeetSdk.conference().getParticipants();
-        for (Participant user : users) {
-            if (null != user.getId() && !user.getId().equals(VoxeetSdk.session().getParticipantId())
-                    && ConferenceParticipantStatus.ON_AIR.equals(user.getStatus())) {
-                found = true;
-            }
-        }
+    /**
+     * Stop the outgoing call sound once a remote participant is on air
+     * <p>
+     * Called from the posting thread for each updated participant : a remote participant can only get
+     * on air through its own update so that the participants of the conference are not scanned. The
+     * sound is stopped on the main thread, at most once per pending request
+     *
+     * @param user the participant updated
+     */
+    private void checkStopOutgoingCall(@Nullable Participant user) {
+        if (null == user || null == user.getId()) return;
+        if (!ConferenceParticipantStatus.ON_AIR.equals(user.getStatus())) return;
+        if (null == VoxeetSdk.session() || user.getId().equals(VoxeetSdk.session().getParticipantId())) return;
 
-        if (found) {
-            VoxeetSdk.audio().stop();
+        if (mStopOutgoingCallPosted.compareAndSet(false, true)) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mStopOutgoingCallPosted.set(false);
+                    AudioService audio = VoxeetSdk.audio();
+                    if (null != audio) audio.stop();
+                }
+            });
         }
     }
 
 
+    /**
+     * Get the participants of the conference followed by the invited ones not in it yet
+     *
+     * @return a new list owned by the caller
+     */
+    @NonNull
     private List<Participant> getUsers() {
         if (null != VoxeetSdk.instance()) {
-            return VoxeetSdk.conference().getParticipants();
+            return ToolkitUtils.mergeParticipants(VoxeetSdk.conference().getParticipants(), mInvitedUsers);
         }
-        return new ArrayList<>();
+        return new ArrayList<>(mInvitedUsers);
     }
 
     @Override
@@ -938,6 +1073,138 @@ public abstract class AbstractConferenceToolkitController implements VoxeetOverl
         }
     }
 
+    /**
+     * Forward the coalesced events to the participant index then to the current main view
+     * <p>
+     * The participants of the flush are folded into the snapshot by the worker once all the events are
+     * dispatched. The main view is told that the flush ended with the resulting snapshot, so that the
+     * refreshes made then read the index and the snapshot in the same state
+     */
+    private ConferenceUpdateScheduler.Listener mMainViewUpdates = new ConferenceUpdateScheduler.Listener() {
+        @Override
+        public void onParticipantAdded(@NonNull Conference conference, @NonNull Participant participant) {
+            onParticipantChanged(participant);
+            if (null != mMainView) mMainView.onUserAddedEvent(conference, participant);
+        }
+
+        @Override
+        public void onParticipantUpdated(@NonNull Conference conference, @NonNull Participant participant) {
+            onParticipantChanged(participant);
+            if (null != mMainView) mMainView.onUserUpdatedEvent(conference, participant);
+        }
+
+        @Override
+        public void onStreamAdded(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+            onParticipantChanged(participant);
+            if (null != mMainView) mMainView.onStreamAddedEvent(conference, participant, stream);
+        }
+
+        @Override
+        public void onStreamUpdated(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+            onParticipantChanged(participant);
+            if (null != mMainView) mMainView.onStreamUpdatedEvent(conference, participant, stream);
+        }
+
+        @Override
+        public void onStreamRemoved(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+            onParticipantChanged(participant);
+            if (null != mMainView) mMainView.onStreamRemovedEvent(conference, participant, stream);
+        }
+
+        @Override
+        public void onUpdatesFlushed() {
+            //the list now belongs to the worker
+            mSnapshotWorker.fold(mChangedParticipants, optConferenceId(), getLocalParticipantId());
+            mChangedParticipants = new ArrayList<>();
+        }
+    };
+
+    /**
+     * Receive the snapshots derived by the worker, at most once per frame
+     */
+    private ConferenceSnapshotWorker.Listener mSnapshotListener = new ConferenceSnapshotWorker.Listener() {
+        @Override
+        public void onSnapshot(@NonNull ConferenceSnapshot snapshot, boolean flushed) {
+            mSnapshot = snapshot;
+            publishSnapshot();
+
+            if (flushed && null != mMainView) mMainView.onConferenceUpdatesFlushed();
+        }
+    };
+
+    private void onParticipantChanged(@NonNull Participant participant) {
+        VoxeetToolkit.getInstance().getParticipantIndex().onParticipantChanged(participant);
+        mChangedParticipants.add(participant);
+    }
+
+    /**
+     * Keep the active speaker of the snapshot up to date while in a conference
+     */
+    private ActiveSpeakerEngine.Listener mActiveSpeakerListener = new ActiveSpeakerEngine.Listener() {
+        @Override
+        public void onActiveSpeakerChanged(@Nullable String participantId) {
+            mSnapshotWorker.setActiveSpeaker(participantId);
+        }
+    };
+
+    /**
+     * Replace the participants of the snapshot, published once derived by the worker
+     *
+     * @param users the participants of the conference and the invited ones
+     */
+    private void updateSnapshot(@NonNull List<Participant> users) {
+        //the views keep the given list, the worker reads its own copy
+        mSnapshotWorker.setParticipants(new ArrayList<>(users), optConferenceId(), getLocalParticipantId());
+    }
+
+    /**
+     * Send the current snapshot to the main view if it changed since the last one sent
+     */
+    private void publishSnapshot() {
+        if (null == mMainView || mPublishedSnapshot == mSnapshot) return;
+        mPublishedSnapshot = mSnapshot;
+        mMainView.onConferenceSnapshot(mSnapshot);
+    }
+
+    /**
+     * Get the last state of the conference known by the controller
+     *
+     * @return the snapshot, EMPTY outside of a conference
+     */
+    @NonNull
+    public ConferenceSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Keep the state of the participants list while the overlay is removed from the window
+     *
+     * @param conferenceId the conference the state belongs to
+     * @param state        the state saved by the view, null to forget it
+     */
+    public void saveParticipantsState(@Nullable String conferenceId, @Nullable Parcelable state) {
+        mSavedParticipantsConferenceId = null != state ? conferenceId : null;
+        mSavedParticipantsState = null != conferenceId ? state : null;
+    }
+
+    /**
+     * Get the state of the participants list saved in a conference
+     *
+     * @param conferenceId the current conference
+     * @return the state or null if none was saved in this conference
+     */
+    @Nullable
+    public Parcelable getParticipantsState(@Nullable String conferenceId) {
+        if (null == conferenceId || !conferenceId.equals(mSavedParticipantsConferenceId)) return null;
+        return mSavedParticipantsState;
+    }
+
+    @Nullable
+    private String getLocalParticipantId() {
+        SessionService session = VoxeetSdk.session();
+        return null != session ? session.getParticipantId() : null;
+    }
+
     @NonNull
     private String optConferenceId() {
         ConferenceService service = VoxeetSdk.conference();
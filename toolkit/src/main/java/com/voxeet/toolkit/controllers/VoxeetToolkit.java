@@ -2,7 +2,11 @@ package com.voxeet.toolkit.controllers;
 
 import android.app.Activity;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.os.Bundle;
+import android.os.HandlerThread;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
@@ -12,6 +16,14 @@ import com.voxeet.sdk.utils.NoDocumentation;
 import com.voxeet.toolkit.implementation.overlays.OverlayState;
 import com.voxeet.toolkit.providers.rootview.AbstractRootViewProvider;
 import com.voxeet.toolkit.providers.rootview.DefaultRootViewProvider;
+import com.voxeet.toolkit.utils.ActiveSpeakerEngine;
+import com.voxeet.toolkit.utils.AudioLevelSampler;
+import com.voxeet.toolkit.utils.AvatarLoader;
+import com.voxeet.toolkit.utils.ParticipantIndex;
+import com.voxeet.toolkit.utils.StreamQualityHook;
+import com.voxeet.toolkit.utils.ToolkitTicker;
+import com.voxeet.toolkit.utils.VideoAttachTracker;
+import com.voxeet.toolkit.views.internal.rounded.RoundedBitmapCache;
 
 import org.greenrobot.eventbus.EventBus;
 
@@ -34,6 +46,56 @@ public class VoxeetToolkit implements Application.ActivityLifecycleCallbacks {
     private boolean mIsOverEnabled;
     private List<AbstractConferenceToolkitController> mConferenceToolkitControllers;
 
+    @NonNull
+    private ParticipantIndex mParticipantIndex = new ParticipantIndex();
+
+    @NonNull
+    private ToolkitTicker mTicker = new ToolkitTicker();
+
+    /**
+     * Number of started activities, the application is in background when it drops to 0
+     */
+    private int mStartedActivities;
+
+    @NonNull
+    private AudioLevelSampler mAudioLevelSampler = new AudioLevelSampler(mTicker);
+
+    @NonNull
+    private ActiveSpeakerEngine mActiveSpeakerEngine = new ActiveSpeakerEngine(mAudioLevelSampler);
+
+    @NonNull
+    private VideoAttachTracker mVideoAttachTracker = new VideoAttachTracker();
+
+    private AvatarLoader mAvatarLoader;
+
+    /**
+     * Background thread deriving the snapshots of the conference controllers
+     */
+    private HandlerThread mSnapshotThread;
+
+    @Nullable
+    private StreamQualityHook mStreamQualityHook;
+
+    /**
+     * Release the bitmaps which can be drawn again when the system is low on memory
+     */
+    @NonNull
+    private ComponentCallbacks2 mMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) RoundedBitmapCache.clear();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration configuration) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            RoundedBitmapCache.clear();
+        }
+    };
+
 
     /**
      * This function initializes the UI Toolkit SDK. It should be called as early as possible.
@@ -116,6 +178,90 @@ public class VoxeetToolkit implements Application.ActivityLifecycleCallbacks {
     }
 
 
+    /**
+     * Get the index of the participants and streams of the current conference shared by the views
+     *
+     * @return the instance of the index
+     */
+    @NonNull
+    public ParticipantIndex getParticipantIndex() {
+        return mParticipantIndex;
+    }
+
+    /**
+     * Get the looper of the background thread owning the snapshots of the conference
+     *
+     * @return the looper of the thread, started with the toolkit
+     */
+    @NonNull
+    public Looper getSnapshotLooper() {
+        return mSnapshotThread.getLooper();
+    }
+
+    /**
+     * Get the scheduler of the periodic tasks, suspended while the application is in background
+     *
+     * @return the instance of the ticker
+     */
+    @NonNull
+    public ToolkitTicker getTicker() {
+        return mTicker;
+    }
+
+    /**
+     * Get the sampler of the audio levels of the participants, shared by the views
+     *
+     * @return the instance of the sampler
+     */
+    @NonNull
+    public AudioLevelSampler getAudioLevelSampler() {
+        return mAudioLevelSampler;
+    }
+
+    /**
+     * Get the engine deriving the active speaker from the audio levels, shared by the views
+     *
+     * @return the instance of the engine
+     */
+    @NonNull
+    public ActiveSpeakerEngine getActiveSpeakerEngine() {
+        return mActiveSpeakerEngine;
+    }
+
+    /**
+     * Get the tracker attaching the streams to the renderers of the views
+     *
+     * @return the instance of the tracker
+     */
+    @NonNull
+    public VideoAttachTracker getVideoAttachTracker() {
+        return mVideoAttachTracker;
+    }
+
+    /**
+     * Get the loader of the avatars displayed by the views, available once the toolkit is initialized
+     *
+     * @return the instance of the loader
+     */
+    @NonNull
+    public AvatarLoader getAvatarLoader() {
+        return mAvatarLoader;
+    }
+
+    /**
+     * Set the hook notified of the size at which the videos are rendered by the participant cells
+     *
+     * @param hook the hook to use, null to remove it
+     */
+    public void setStreamQualityHook(@Nullable StreamQualityHook hook) {
+        mStreamQualityHook = hook;
+    }
+
+    @Nullable
+    public StreamQualityHook getStreamQualityHook() {
+        return mStreamQualityHook;
+    }
+
     /**
      * Enables or disables the voxeet conference view. This custom view will appear and disappear
      * when join/leaving conference.
@@ -157,7 +303,8 @@ public class VoxeetToolkit implements Application.ActivityLifecycleCallbacks {
     @NoDocumentation
     @Override
     public void onActivityStarted(Activity activity) {
-
+        //the ticker is only suspended and caught up when the whole application changes state
+        if (++mStartedActivities == 1) mTicker.setForeground(true);
     }
 
     @NoDocumentation
@@ -179,7 +326,10 @@ public class VoxeetToolkit implements Application.ActivityLifecycleCallbacks {
     @NoDocumentation
     @Override
     public void onActivityStopped(Activity activity) {
+        if (mStartedActivities > 0) mStartedActivities--;
 
+        //an activity recreated after a configuration change is started again right away
+        if (0 == mStartedActivities && !activity.isChangingConfigurations()) mTicker.setForeground(false);
     }
 
     @NoDocumentation
@@ -247,9 +397,17 @@ public class VoxeetToolkit implements Application.ActivityLifecycleCallbacks {
                       EventBus eventBus) {
 
         mConferenceToolkitControllers = new ArrayList<>();
+        mAvatarLoader = new AvatarLoader(application);
+
+        mSnapshotThread = new HandlerThread("ConferenceSnapshot");
+        mSnapshotThread.start();
+        application.registerComponentCallbacks(mMemoryCallbacks);
 
         mIsInit = true;
 
+        if (!eventBus.isRegistered(mParticipantIndex)) eventBus.register(mParticipantIndex);
+        if (!eventBus.isRegistered(mActiveSpeakerEngine)) eventBus.register(mActiveSpeakerEngine);
+
         registerConferenceToolkitController(new ConferenceToolkitController(application, eventBus, OverlayState.MINIMIZED));
         registerConferenceToolkitController(new ReplayMessageToolkitController(application, eventBus, OverlayState.MINIMIZED));
     }
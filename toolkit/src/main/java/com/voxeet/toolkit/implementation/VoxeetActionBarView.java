@@ -45,6 +45,7 @@ import com.voxeet.sdk.utils.Validate;
 import com.voxeet.toolkit.R;
 import com.voxeet.toolkit.configuration.ActionBar;
 import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.ParticipantIndex;
 
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
@@ -83,6 +84,8 @@ public class VoxeetActionBarView extends VoxeetView {
     private View view_3d;
     private OnView3D view3d_listener;
 
+    private boolean ownStreamsInvalidated;
+
     /**
      * Instantiates a new Voxeet conference bar view.
      *
@@ -274,7 +277,7 @@ public class VoxeetActionBarView extends VoxeetView {
     @Override
     public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamAddedEvent(conference, user, mediaStream);
-        invalidateOwnStreams();
+        ownStreamsInvalidated = true;
     }
 
     /**
@@ -287,7 +290,7 @@ public class VoxeetActionBarView extends VoxeetView {
     @Override
     public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamUpdatedEvent(conference, user, mediaStream);
-        invalidateOwnStreams();
+        ownStreamsInvalidated = true;
     }
 
     /**
@@ -300,7 +303,20 @@ public class VoxeetActionBarView extends VoxeetView {
     @Override
     public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamRemovedEvent(conference, user, mediaStream);
-        invalidateOwnStreams();
+        ownStreamsInvalidated = true;
+    }
+
+    /**
+     * Method call once the coalesced events have been dispatched
+     */
+    @Override
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
+
+        if (ownStreamsInvalidated) {
+            ownStreamsInvalidated = false;
+            invalidateOwnStreams();
+        }
     }
 
     /**
@@ -309,11 +325,12 @@ public class VoxeetActionBarView extends VoxeetView {
      * - the screenshare button
      */
     public void invalidateOwnStreams() {
-        Participant user = VoxeetSdk.conference().findParticipantById(VoxeetSdk.session().getParticipantId());
+        ParticipantIndex index = VoxeetToolkit.getInstance().getParticipantIndex();
+        Participant user = index.getLocal();
 
         if (null != user) {
-            MediaStream cameraStream = user.streamsHandler().getFirst(MediaStreamType.Camera);
-            MediaStream screenStream = user.streamsHandler().getFirst(MediaStreamType.ScreenShare);
+            MediaStream cameraStream = index.getStream(user.getId(), MediaStreamType.Camera);
+            MediaStream screenStream = index.getStream(user.getId(), MediaStreamType.ScreenShare);
             if (camera != null && null != cameraStream) {
                 camera.setSelected(cameraStream.videoTracks().size() > 0);
             }
@@ -623,6 +640,12 @@ public class VoxeetActionBarView extends VoxeetView {
             screenshare_wrapper.setVisibility(displayScreenShare && screenShareEnabled ? visibility : GONE);
     }
 
+    @NoDocumentation
+    @Override
+    protected int getInterests() {
+        return INTEREST_CONFERENCE | INTEREST_STREAMS | INTEREST_LIFECYCLE | INTEREST_UPDATES;
+    }
+
     @NoDocumentation
     @Override
     protected int layout() {
@@ -27,6 +27,7 @@ import com.voxeet.sdk.json.VideoPresentationStopped;
 import com.voxeet.sdk.models.Conference;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.services.ConferenceService;
+import com.voxeet.sdk.services.MediaDeviceService;
 import com.voxeet.sdk.services.conference.information.ConferenceInformation;
 import com.voxeet.sdk.services.conference.information.ConferenceParticipantType;
 import com.voxeet.sdk.services.conference.information.ConferenceStatus;
@@ -38,7 +39,11 @@ import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.implementation.overlays.abs.AbstractVoxeetExpandableView;
 import com.voxeet.toolkit.utils.ConferenceViewRendererControl;
 import com.voxeet.toolkit.utils.IParticipantViewListener;
-import com.voxeet.toolkit.utils.ToolkitUtils;
+import com.voxeet.toolkit.utils.ConferenceSnapshot;
+import com.voxeet.toolkit.utils.ParticipantIndex;
+import com.voxeet.toolkit.utils.StreamRoute;
+import com.voxeet.toolkit.utils.StreamRouter;
+import com.voxeet.toolkit.utils.VideoAttachTracker;
 import com.voxeet.toolkit.utils.VoxeetActiveSpeakerTimer;
 import com.voxeet.toolkit.views.NotchAvoidView;
 
@@ -62,6 +67,13 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
 
     private VoxeetSpeakerView speakerView;
 
+    private VoxeetGalleryView galleryView;
+
+    /**
+     * Display the participants in a grid when the view is expanded
+     */
+    private boolean galleryMode;
+
     private ViewGroup layoutTimer;
 
     @Nullable
@@ -85,6 +97,9 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
 
     private ConferenceViewRendererControl mConferenceViewRendererControl;
 
+    @NonNull
+    private StreamRouter<MediaStream> mStreamRouter = new StreamRouter<>();
+
     /**
      * Instantiates a new Voxeet conference view.
      *
@@ -210,8 +225,10 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
 
             updateConferenceBarViewVisibility();
 
-            refreshMediaStreams();
+            //the gallery renders every stream by itself
+            if (!isGalleryDisplayed()) refreshMediaStreams();
             refreshUIVisibility();
+            applyGalleryMode();
         } else {
             onConferenceLeaving(); //Left ? but left does not show anything
         }
@@ -222,13 +239,13 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         super.onStop();
 
         if (null != selfView) {
-            selfView.unAttach();
+            attachTracker().release(selfView);
         }
 
         if (null != selectedView) {
             mPreviouslyAttachedPeerId = selectedView.getPeerId();
             mPreviouslyScreenShare = selectedView.isScreenShare();
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
         }
     }
 
@@ -237,7 +254,7 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         super.onDestroy();
 
         if (null != selfView) {
-            selfView.unAttach();
+            attachTracker().release(selfView);
         }
 
         if (null != selectedView) {
@@ -245,7 +262,7 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
             mPreviouslyAttachedPeerId = null;
             mPreviouslyScreenShare = false;
 
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
         }
     }
 
@@ -327,10 +344,10 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
             notchView.setVisibility(View.GONE);
         }
 
-        Participant user = VoxeetSdk.conference().findParticipantById(VoxeetSdk.session().getParticipantId());
+        Participant user = index().getLocal();
         if (null != user) {
-            MediaStream stream = user.streamsHandler().getFirst(MediaStreamType.Camera);
-            if (!ToolkitUtils.hasParticipants() && null != stream && stream.videoTracks().size() > 0) {
+            MediaStream stream = index().getStream(user.getId(), MediaStreamType.Camera);
+            if (!getSnapshot().hasParticipants() && null != stream && stream.videoTracks().size() > 0) {
                 selectedView.setVisibility(View.VISIBLE);
                 mConferenceViewRendererControl.attachStreamToSelf(stream);
                 if (!isExpanded) selfView.setVisibility(View.GONE);
@@ -383,7 +400,7 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
     public void onConferenceNoMoreUser() {
         super.onConferenceNoMoreUser();
 
-        String ownUserId = VoxeetSdk.session().getParticipantId();
+        String ownUserId = getSnapshot().getLocalParticipantId();
         if (null == ownUserId) ownUserId = "";
 
         updateTextState(R.string.voxeet_waiting_for_users);
@@ -441,12 +458,14 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
     public void onConferenceDestroyed() {
         super.onConferenceDestroyed();
 
+        mStreamRouter.reset();
+
         if (null != selfView) {
-            selfView.unAttach();
+            attachTracker().release(selfView);
         }
 
         if (null != selectedView) {
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
         }
     }
 
@@ -454,79 +473,33 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
     public void onConferenceLeft() {
         super.onConferenceLeft();
 
+        mStreamRouter.reset();
+
         if (null != selfView) {
-            selfView.unAttach();
+            attachTracker().release(selfView);
         }
 
         if (null != selectedView) {
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
         }
     }
 
     private void refreshMediaStreams() {
-        String localUserId = VoxeetSdk.session().getParticipantId();
-        if (null == localUserId) localUserId = "";
-        ConferenceService service = VoxeetSdk.conference();
-        List<Participant> users = service.getParticipants();
-
-        String currentUserAttached = selectedView.getPeerId();
-        Participant localUser = service.findParticipantById(localUserId);
-        Participant user = service.findParticipantById(currentUserAttached);
-        MediaStream localUserMediaStream = localUser.streamsHandler().getFirst(MediaStreamType.Camera);
-
-
-        if (ToolkitUtils.hasParticipants() && localUserId.equalsIgnoreCase(currentUserAttached)) {
-            selectedView.unAttach();
-            selectedView.setMirror(false);
-        }
+        ConferenceSnapshot snapshot = getSnapshot();
+        String localUserId = snapshot.getLocalParticipantId();
+        ParticipantIndex index = index();
 
-        if (null != currentUserAttached) {
-            MediaStream stream = user.streamsHandler().getFirst(MediaStreamType.Camera);
-            MediaStream screenShareStream = user.streamsHandler().getFirst(MediaStreamType.ScreenShare);
-            boolean unAttach = true;
-            boolean hasScreenShare = null != screenShareStream && screenShareStream.videoTracks().size() > 0;
-            boolean hasVideo = null != stream && stream.videoTracks().size() > 0;
-            if (hasScreenShare) {
-                unAttach = false;
-            } else if (hasVideo) {
-                unAttach = false;
-            }
-
-            if (unAttach) selectedView.unAttach();
-        }
-
-        String currentActiveSpeaker = getCurrentActiveSpeaker();
-        loopUserForStreamInVideoViewIfUnattached(currentActiveSpeaker, users, MediaStreamType.ScreenShare);
-        loopUserForStreamInVideoViewIfUnattached(currentActiveSpeaker, users, MediaStreamType.Camera);
+        StreamRoute<MediaStream> previous = mStreamRouter.getCurrent();
+        StreamRoute<MediaStream> route = mStreamRouter.route(localUserId,
+                index,
+                speakerView.getSelectedUserId(),
+                snapshot.getActiveSpeakerId(),
+                snapshot.hasParticipants());
 
-        if (null != localUserMediaStream) {
-            if (localUserMediaStream.videoTracks().size() > 0) {
-                selfView.attach(localUserId, localUserMediaStream);
-
-                selfView.setMirror(VoxeetSdk.mediaDevice().getCameraContext().isDefaultFrontFacing());
-                if (isExpanded) selfView.setVisibility(View.VISIBLE);
-                else selfView.setVisibility(View.GONE);
-            } else {
-                selfView.unAttach();
-                selfView.setVisibility(View.GONE);
-            }
-        }
-
-        if (!service.hasParticipants()) {
-            speakerView.setVisibility(View.GONE);
-            selectedView.setVisibility(View.GONE);
-        } else if (!selectedView.isAttached()) {
-            speakerView.onResume();
-            speakerView.setVisibility(View.VISIBLE);
-            selectedView.unAttach();
-            selectedView.setVisibility(View.GONE);
-        } else {
-            //participants are here so we don't have our own video on top
-            //force unmirrored view with participants
-            selectedView.setMirror(false);
-            speakerView.onPause();
-            speakerView.setVisibility(View.GONE);
+        if (previous.getState() != route.getState()) {
+            Log.d(TAG, "refreshMediaStreams: " + previous + " -> " + route);
         }
+        applyRoute(localUserId, route);
 
         conferenceActionBarView.invalidateOwnStreams();
 
@@ -540,51 +513,62 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         }
     }
 
-    private void loopUserForStreamInVideoViewIfUnattached(@Nullable String currentSelectedUserId,
-                                                          List<Participant> users,
-                                                          MediaStreamType mediaStreamType) {
-
-        MediaStream foundToAttach = null;
-        String userIdFoundToAttach = null;
-
-        if (null != currentSelectedUserId) {
-            Participant user = VoxeetSdk.conference().findParticipantById(currentSelectedUserId);
-            if (null != user) {
-                userIdFoundToAttach = user.getId();
-                foundToAttach = user.streamsHandler().getFirst(mediaStreamType);
-            }
-        }
+    /**
+     * Apply a route to the views, the renderers already displaying the right stream are left untouched
+     *
+     * @param localUserId the id of the local participant
+     * @param route       the route to apply
+     */
+    private void applyRoute(@Nullable String localUserId, @NonNull StreamRoute<MediaStream> route) {
+        boolean frontFacing = isFrontFacing();
 
-        if (null == foundToAttach) {
-            for (Participant user : users) {
-                String userId = user.getId();
-                if (null != userId && !userId.equals(VoxeetSdk.session().getParticipantId()) && !userId.equals(currentSelectedUserId) && null == foundToAttach) {
-                    userIdFoundToAttach = userId;
-                    foundToAttach = user.streamsHandler().getFirst(mediaStreamType);
-                    if (null != foundToAttach && foundToAttach.videoTracks().size() <= 0)
-                        foundToAttach = null;
+        //a stream moving between the selected and the self views is attached again, see VideoAttachTracker
+        MediaStream selected = route.getSelectedStream();
+        if (null != selectedView) {
+            if (null != selected) {
+                if (attachTracker().attach(selectedView, route.getSelectedPeerId(), selected)) {
+                    //only the local camera is mirrored, when nobody else is here
+                    selectedView.setMirror(StreamRoute.State.SELF_ONLY == route.getState() && frontFacing);
                 }
+                selectedView.setVisibility(View.VISIBLE);
+            } else {
+                attachTracker().release(selectedView);
+                selectedView.setVisibility(View.GONE);
             }
         }
 
-        if ((!selectedView.isAttached() || MediaStreamType.ScreenShare.equals(mediaStreamType)) && null != foundToAttach && foundToAttach.videoTracks().size() > 0) {
-            selectedView.setVisibility(View.VISIBLE);
-            selectedView.attach(userIdFoundToAttach, foundToAttach);
+        MediaStream self = route.getSelfStream();
+        if (null != self) {
+            if (attachTracker().attach(selfView, localUserId, self)) {
+                selfView.setMirror(frontFacing);
+            }
+            selfView.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
+        } else {
+            attachTracker().release(selfView);
+            selfView.setVisibility(View.GONE);
         }
 
-        if (null == foundToAttach) {
-            MediaStreamType stream = selectedView.current();
-            if (null != stream && stream.equals(mediaStreamType)) {
-                selectedView.setVisibility(View.GONE);
-                selectedView.unAttach();
+        if (StreamRoute.State.SPEAKER_AVATAR == route.getState()) {
+            if (View.VISIBLE != speakerView.getVisibility()) {
+                speakerView.setVisibility(View.VISIBLE);
+                speakerView.onResume();
             }
+        } else if (View.GONE != speakerView.getVisibility()) {
+            hideSpeakerView();
         }
     }
 
+    private boolean isFrontFacing() {
+        MediaDeviceService service = VoxeetSdk.mediaDevice();
+        return null != service && service.getCameraContext().isDefaultFrontFacing();
+    }
+
     private void checkForLocalUserStreamVideo() {
-        Participant user = VoxeetSdk.conference().findParticipantById(VoxeetSdk.session().getParticipantId());
+        if (isGalleryDisplayed()) return;
+
+        Participant user = index().getLocal();
         if (null != user) {
-            MediaStream stream = user.streamsHandler().getFirst(MediaStreamType.Camera);
+            MediaStream stream = index().getStream(user.getId(), MediaStreamType.Camera);
             if (null != stream && stream.videoTracks().size() > 0) {
                 mConferenceViewRendererControl.attachStreamToSelf(stream);
                 if (!isExpanded) selfView.setVisibility(View.GONE);
@@ -598,6 +582,16 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
 
     }
 
+    @NonNull
+    private ParticipantIndex index() {
+        return VoxeetToolkit.getInstance().getParticipantIndex();
+    }
+
+    @NonNull
+    private VideoAttachTracker attachTracker() {
+        return VoxeetToolkit.getInstance().getVideoAttachTracker();
+    }
+
     @Override
     public void onPreExpandedView() {
         if (selfView.isAttached()) {
@@ -619,6 +613,7 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         if (selectedView != null) {
             selectedView.setCornerRadius(0);
         }
+        applyGalleryMode();
 
         mConferenceViewRendererControl.enableClick(true);
 
@@ -662,6 +657,8 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
 
             speakerView = view.findViewById(R.id.current_speaker_view);
 
+            galleryView = view.findViewById(R.id.gallery_view);
+
             selectedView = view.findViewById(R.id.selected_video_view);
 
             selfView = view.findViewById(R.id.self_video_view);
@@ -697,11 +694,14 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
             conferenceActionBarView.setDisplayScreenShare(actionBarConfiguration.displayScreenShare);
             conferenceActionBarView.setDisplaySpeaker(actionBarConfiguration.displaySpeaker);
 
+            galleryMode = configuration.Gallery.enabled;
+
             //addListeners for voxeet dispatch events
             addListener(speakerView);
             addListener(conferenceActionBarView);
             addListener(participantView);
             addListener(voxeetTimer);
+            addListener(galleryView);
 
             updateUi();
         } catch (Exception e) {
@@ -718,53 +718,22 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
     }
 
     @Override
-    public void onUserAddedEvent(@NonNull Conference conference, @NonNull Participant user) {
-        super.onUserAddedEvent(conference, user);
-        checkForLocalUserStreamVideo();
-        updateSpeakerViewVisibility();
-        participantView.onUserAddedEvent(conference, user);
+    public void onConferenceSnapshot(@NonNull ConferenceSnapshot snapshot) {
+        String previousSpeaker = getSnapshot().getActiveSpeakerId();
+        super.onConferenceSnapshot(snapshot);
 
-        updateUi();
-    }
-
-    @Override
-    public void onUserUpdatedEvent(@NonNull Conference conference, @NonNull Participant user) {
-        super.onUserUpdatedEvent(conference, user);
-        checkForLocalUserStreamVideo();
-        updateSpeakerViewVisibility();
-        participantView.onUserUpdatedEvent(conference, user);
-
-        updateUi();
+        String activeSpeaker = snapshot.getActiveSpeakerId();
+        if (null == activeSpeaker ? null != previousSpeaker : !activeSpeaker.equals(previousSpeaker)) {
+            updateUi();
+        }
     }
 
     @Override
-    public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        super.onStreamAddedEvent(conference, user, mediaStream);
-        checkForLocalUserStreamVideo();
-        updateSpeakerViewVisibility();
-        participantView.onStreamAddedEvent(conference, user, mediaStream);
-
-        updateUi();
-    }
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
 
-    @Override
-    public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        super.onStreamUpdatedEvent(conference, user, mediaStream);
         checkForLocalUserStreamVideo();
         updateSpeakerViewVisibility();
-        participantView.onStreamUpdatedEvent(conference, user, mediaStream);
-
-        updateUi();
-    }
-
-    @Override
-    public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        super.onStreamRemovedEvent(conference, user, mediaStream);
-
-        checkForLocalUserStreamVideo();
-        updateSpeakerViewVisibility();
-        participantView.onStreamRemovedEvent(conference, user, mediaStream);
-
         updateUi();
     }
 
@@ -896,7 +865,7 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         if (null != speakerView) {
             String selectedUser = speakerView.getSelectedUserId();
             if (null != selectedUser) {
-                Participant user = VoxeetSdk.conference().findParticipantById(selectedUser);
+                Participant user = index().get(selectedUser);
                 if (null == user) {
                     speakerView.unlockScreen();
                 }
@@ -906,16 +875,16 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         if (null != selectedView) {
             String selectedUser = selectedView.getPeerId();
             if (null != selectedUser) {
-                Participant user = VoxeetSdk.conference().findParticipantById(selectedUser);
+                Participant user = index().get(selectedUser);
                 if (null == user) {
-                    selectedView.unAttach();
+                    attachTracker().release(selectedView);
                 }
             }
         }
 
         if (null != selectedView && selectedView.isAttached()) {
             hideSpeakerView();
-        } else if (VoxeetSdk.conference().getParticipants().size() > 0) {
+        } else if (index().getParticipants().size() > 0) {
             if (null != selectedView) selectedView.setVisibility(View.GONE);
             showSpeakerView();
         } else {
@@ -924,13 +893,62 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
         }
     }
 
+    /**
+     * Switch between the grid of participants and the selected participant, only used while expanded
+     *
+     * @param galleryMode true to display the grid
+     */
+    public void setGalleryMode(boolean galleryMode) {
+        if (this.galleryMode == galleryMode) return;
+
+        this.galleryMode = galleryMode;
+        updateUi();
+    }
+
+    public boolean isGalleryMode() {
+        return galleryMode;
+    }
+
+    private boolean isGalleryDisplayed() {
+        return galleryMode && isExpanded && null != galleryView && getSnapshot().hasParticipants();
+    }
+
+    /**
+     * Show the grid instead of the selected participant, releasing the renderers of the hidden views
+     */
+    private void applyGalleryMode() {
+        if (null == galleryView) return;
+
+        if (isGalleryDisplayed()) {
+            if (null != selectedView) {
+                attachTracker().release(selectedView);
+                selectedView.setVisibility(View.GONE);
+            }
+            attachTracker().release(selfView);
+            selfView.setVisibility(View.GONE);
+            hideSpeakerView();
+            layoutParticipant.setVisibility(View.GONE);
+
+            galleryView.setVisibility(View.VISIBLE);
+            galleryView.setActive(true);
+        } else if (galleryView.isActive()) {
+            galleryView.setActive(false);
+            galleryView.setVisibility(View.GONE);
+
+            if (isExpanded) layoutParticipant.setVisibility(View.VISIBLE);
+            //the streams were released while the grid was displayed
+            refreshMediaStreams();
+            updateSpeakerViewVisibility();
+        }
+    }
+
     public void hideSpeakerView() {
         speakerView.setVisibility(View.GONE);
         speakerView.onPause();
     }
 
     public void showSpeakerView() {
-        if (VoxeetSdk.conference().hasParticipants()) {
+        if (getSnapshot().hasParticipants()) {
             speakerView.setVisibility(View.VISIBLE);
             speakerView.onResume();
         } else {
@@ -955,13 +973,12 @@ public class VoxeetConferenceView extends AbstractVoxeetExpandableView implement
     private String getCurrentActiveSpeaker() {
         //get the selected user OR the "refreshed"/"cached" active speaker
         String activeSpeaker = speakerView.getSelectedUserId();
-        if (null == activeSpeaker && null != voxeetActiveSpeakerTimer)
-            activeSpeaker = voxeetActiveSpeakerTimer.getCurrentActiveSpeaker();
+        if (null == activeSpeaker) activeSpeaker = getSnapshot().getActiveSpeakerId();
         return activeSpeaker;
     }
 
     @Override
     public void onActiveSpeakerUpdated(@Nullable String activeSpeakerUserId) {
-        updateUi();
+        //the streams are routed from the active speaker of the snapshot, see onConferenceSnapshot
     }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package com.voxeet.toolkit.implementation;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.sdk.models.Conference;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.sdk.utils.NoDocumentation;
+import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.configuration.Gallery;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.DeviceClass;
+import com.voxeet.toolkit.utils.GalleryViewAdapter;
+
+/**
+ * View displaying the participants of the conference in an adaptive grid
+ * <p>
+ * The grid fits every video allowed on the device on screen, the remaining participants are reachable by
+ * scrolling. Tiles are only rendered while the view is active and renderers are released as soon as
+ * their tile leaves the screen
+ */
+@Annotate
+public class VoxeetGalleryView extends VoxeetView {
+
+    private RecyclerView recyclerView;
+
+    private GalleryViewAdapter adapter;
+
+    private GridLayoutManager gridLayout;
+
+    private int maxVideoTiles;
+
+    private int tileCount;
+
+    private boolean active;
+
+    /**
+     * Refresh requested by the events, applied in onConferenceUpdatesFlushed
+     */
+    private boolean invalidated;
+
+    /**
+     * Instantiates a new Voxeet gallery view.
+     *
+     * @param context the context
+     */
+    @NoDocumentation
+    public VoxeetGalleryView(Context context) {
+        super(context);
+    }
+
+    /**
+     * Instantiates a new Voxeet gallery view.
+     *
+     * @param context the context
+     * @param attrs   the attrs
+     */
+    @NoDocumentation
+    public VoxeetGalleryView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * Instantiates a new Voxeet gallery view.
+     *
+     * @param context      the context
+     * @param attrs        the attrs
+     * @param defStyleAttr the def style attr
+     */
+    @NoDocumentation
+    public VoxeetGalleryView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Start or stop displaying the participants, no renderer is used while inactive
+     *
+     * @param active true to display the grid
+     */
+    public void setActive(boolean active) {
+        if (this.active == active) return;
+        this.active = active;
+
+        if (active) {
+            refresh();
+        } else {
+            adapter.clear();
+        }
+    }
+
+    @NoDocumentation
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Set the maximum number of videos displayed at the same time
+     *
+     * @param maxVideoTiles the number of videos, 0 to use the limit of the device
+     */
+    public void setMaxVideoTiles(int maxVideoTiles) {
+        this.maxVideoTiles = maxVideoTiles > 0 ? maxVideoTiles : DeviceClass.get(getContext()).maxVideoTiles;
+        adapter.setMaxVideoTiles(this.maxVideoTiles);
+
+        if (active) refresh();
+    }
+
+    private void refresh() {
+        invalidated = false;
+
+        tileCount = adapter.setParticipants(VoxeetToolkit.getInstance().getParticipantIndex().getParticipants());
+        updateGrid();
+    }
+
+    /**
+     * Compute the number of columns and the size of the tiles so that every video fits on screen
+     */
+    private void updateGrid() {
+        int width = recyclerView.getWidth();
+        int height = recyclerView.getHeight();
+        if (width <= 0 || height <= 0) return; //called again once measured
+
+        int visible = Math.max(1, Math.min(tileCount, maxVideoTiles));
+        int columns = (int) Math.ceil(Math.sqrt(visible));
+        //two participants are stacked in portrait and side by side in landscape
+        if (2 == visible && height > width) columns = 1;
+        int rows = (int) Math.ceil(visible / (float) columns);
+
+        if (gridLayout.getSpanCount() != columns) gridLayout.setSpanCount(columns);
+        adapter.setTileSize(width / columns, height / rows);
+    }
+
+    @NoDocumentation
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        //the recycler view is laid out with this view, wait for it
+        post(new Runnable() {
+            @Override
+            public void run() {
+                updateGrid();
+            }
+        });
+    }
+
+    @Override
+    public void onUserAddedEvent(@NonNull Conference conference, @NonNull Participant user) {
+        super.onUserAddedEvent(conference, user);
+
+        invalidated = true;
+    }
+
+    @Override
+    public void onUserUpdatedEvent(@NonNull Conference conference, @NonNull Participant user) {
+        super.onUserUpdatedEvent(conference, user);
+
+        invalidated = true;
+    }
+
+    @Override
+    public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
+        super.onStreamAddedEvent(conference, user, mediaStream);
+
+        invalidated = true;
+    }
+
+    @Override
+    public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
+        super.onStreamUpdatedEvent(conference, user, mediaStream);
+
+        invalidated = true;
+    }
+
+    @Override
+    public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
+        super.onStreamRemovedEvent(conference, user, mediaStream);
+
+        invalidated = true;
+    }
+
+    /**
+     * Method called once the coalesced events have been dispatched, the grid is refreshed only once
+     */
+    @Override
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
+
+        if (invalidated && active) refresh();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+
+        if (active) refresh();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+
+        adapter.clear();
+    }
+
+    @Override
+    public void onConferenceDestroyed() {
+        super.onConferenceDestroyed();
+
+        invalidated = false;
+        adapter.clear();
+    }
+
+    @Override
+    public void onConferenceLeft() {
+        super.onConferenceLeft();
+
+        invalidated = false;
+        adapter.clear();
+    }
+
+    @NoDocumentation
+    @Override
+    public void init() {
+        if (null == adapter)
+            adapter = new GalleryViewAdapter(getContext());
+
+        gridLayout = new GridLayoutManager(getContext(), 1);
+
+        recyclerView.setAdapter(adapter);
+        recyclerView.setLayoutManager(gridLayout);
+        //the tiles are resized when the grid changes, their animation would only add frames
+        recyclerView.setItemAnimator(null);
+
+        Gallery configuration = VoxeetToolkit.getInstance().getConferenceToolkit().Configuration.Gallery;
+        setMaxVideoTiles(configuration.maxVideoTiles);
+    }
+
+    @NoDocumentation
+    @Override
+    protected int getInterests() {
+        return INTEREST_CONFERENCE | INTEREST_PARTICIPANTS | INTEREST_STREAMS | INTEREST_LIFECYCLE | INTEREST_UPDATES;
+    }
+
+    @NoDocumentation
+    @Override
+    protected int layout() {
+        return R.layout.voxeet_gallery_view;
+    }
+
+    @NoDocumentation
+    @Override
+    protected void bindView(View view) {
+        recyclerView = view.findViewById(R.id.gallery_recycler_view);
+    }
+}
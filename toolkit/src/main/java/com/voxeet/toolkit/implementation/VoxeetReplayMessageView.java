@@ -7,12 +7,14 @@ import android.view.View;
 
 import com.voxeet.android.media.MediaStream;
 import com.voxeet.android.media.MediaStreamType;
-import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.models.Conference;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.views.VideoView;
 import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.implementation.overlays.abs.AbstractVoxeetExpandableView;
+import com.voxeet.toolkit.utils.ParticipantIndex;
+import com.voxeet.toolkit.utils.VideoAttachTracker;
 
 import java.util.List;
 
@@ -21,6 +23,8 @@ public class VoxeetReplayMessageView extends AbstractVoxeetExpandableView {
 
     private VideoView selectedView;
 
+    private boolean streamsInvalidated;
+
     /**
      * Instantiates a new Voxeet conference view.
      *
@@ -43,50 +47,66 @@ public class VoxeetReplayMessageView extends AbstractVoxeetExpandableView {
     @Override
     public void onUserAddedEvent(@NonNull Conference conference, @NonNull Participant user) {
         super.onUserAddedEvent(conference, user);
-        updateStreams();
+        streamsInvalidated = true;
     }
 
     @Override
     public void onUserUpdatedEvent(@NonNull Conference conference, @NonNull Participant user) {
         super.onUserUpdatedEvent(conference, user);
-        updateStreams();
+        streamsInvalidated = true;
     }
 
     @Override
     public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamAddedEvent(conference, user, mediaStream);
-        updateStreams();
+        streamsInvalidated = true;
     }
 
     @Override
     public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamUpdatedEvent(conference, user, mediaStream);
-        updateStreams();
+        streamsInvalidated = true;
     }
 
     @Override
     public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamRemovedEvent(conference, user, mediaStream);
-        updateStreams();
+        streamsInvalidated = true;
+    }
+
+    @Override
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
+
+        if (streamsInvalidated) {
+            streamsInvalidated = false;
+            updateStreams();
+        }
+    }
+
+    @NonNull
+    private VideoAttachTracker attachTracker() {
+        return VoxeetToolkit.getInstance().getVideoAttachTracker();
     }
 
     private void updateStreams() {
 
-        List<Participant> users = VoxeetSdk.conference().getParticipants();
+        ParticipantIndex index = VoxeetToolkit.getInstance().getParticipantIndex();
+        List<Participant> users = index.getParticipants();
 
         MediaStream stream = null;
         Participant attach = null;
         for (Participant user : users) {
-            stream = user.streamsHandler().getFirst(MediaStreamType.Camera);
+            stream = index.getStream(user.getId(), MediaStreamType.Camera);
             attach = user;
             if (null != stream) break;
         }
 
         if (null != stream) {
             selectedView.setVisibility(View.VISIBLE);
-            selectedView.attach(attach.getId(), stream);
+            attachTracker().attach(selectedView, attach.getId(), stream);
         } else {
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
             selectedView.setVisibility(View.GONE);
         }
 
@@ -116,6 +136,11 @@ public class VoxeetReplayMessageView extends AbstractVoxeetExpandableView {
         //layoutTimer.setVisibility(VISIBLE);
     }
 
+    @Override
+    protected int getInterests() {
+        return INTEREST_PARTICIPANTS | INTEREST_STREAMS | INTEREST_UPDATES;
+    }
+
     @Override
     protected int layout() {
         return R.layout.voxeet_replay_message_view;
@@ -4,26 +4,30 @@ import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.Configuration;
 import android.content.res.TypedArray;
-import android.os.Handler;
-import android.os.Looper;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.TransitionDrawable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.widget.FrameLayout;
-import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.squareup.picasso.Picasso;
-import com.voxeet.sdk.VoxeetSdk;
+import com.squareup.picasso.Target;
 import com.voxeet.sdk.exceptions.ExceptionManager;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.utils.Annotate;
 import com.voxeet.sdk.utils.NoDocumentation;
 import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.ActiveSpeakerEngine;
+import com.voxeet.toolkit.utils.AudioLevelSampler;
+import com.voxeet.toolkit.utils.AvatarLoader;
 import com.voxeet.toolkit.utils.WindowHelper;
 import com.voxeet.toolkit.views.internal.VoxeetVuMeter;
 import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
@@ -35,11 +39,10 @@ import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
 public class VoxeetSpeakerView extends VoxeetView {
     private final String TAG = VoxeetSpeakerView.class.getSimpleName();
 
-    private final int REFRESH_SPEAKER = 1000;
-
-    private final int REFRESH_METER = 100;
-
-    private Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * Duration of the cross fade between the avatars of two speakers
+     */
+    private final static int CROSS_FADE_DURATION = 300;
 
     private int currentWidth;
 
@@ -52,43 +55,53 @@ public class VoxeetSpeakerView extends VoxeetView {
 
     private Participant currentSpeaker = null;
 
-    private boolean selected = false;
+    /**
+     * Avatar displayed or being loaded, the avatar is only loaded again when one of them changes
+     */
+    @Nullable
+    private String displayedId;
+    @Nullable
+    private String displayedUrl;
+    private int displayedBucket;
+    private boolean nextSpeakerLoading;
 
-    private Runnable updateSpeakerRunnable = new Runnable() {
+    /**
+     * Receive the avatar of the next speaker, displayed once loaded
+     */
+    private Target nextSpeakerTarget = new Target() {
         @Override
-        public void run() {
-            if (selected && currentSpeaker != null && currentSpeaker.getId() != null) {
-                //if we had a user but he disappeared...
-                selected = findUserById(currentSpeaker.getId()) != null;
-            } else {
-                //had a user but predicate did not pass
-                selected = false;
-            }
+        public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+            nextSpeakerLoading = false;
+            crossFadeTo(new BitmapDrawable(getResources(), bitmap));
+        }
 
-            if (!selected && null != VoxeetSdk.conference()) {
-                currentSpeaker = findUserById(VoxeetSdk.conference().currentSpeaker());
-                if (currentSpeaker != null && currentSpeaker.getInfo() != null) {
-                    speakerName.setText(currentSpeaker.getInfo().getName());
-                    invalidateSpeakerName();
-                }
-            }
+        @Override
+        public void onBitmapFailed(Exception e, Drawable errorDrawable) {
+            nextSpeakerLoading = false;
+            if (null != errorDrawable) crossFadeTo(errorDrawable);
+        }
 
-            if (currentSpeaker != null && currentWidth > 0)
-                loadViaPicasso(currentSpeaker, currentWidth / 2, currentSpeakerView);
+        @Override
+        public void onPrepareLoad(Drawable placeHolderDrawable) {
+            //the current avatar stays displayed
+        }
+    };
+
+    private boolean selected = false;
 
-            if (mAttached) handler.postDelayed(this, REFRESH_SPEAKER);
+    private ActiveSpeakerEngine.Listener activeSpeakerListener = new ActiveSpeakerEngine.Listener() {
+        @Override
+        public void onActiveSpeakerChanged(@Nullable String participantId) {
+            if (mAttached) updateSpeaker();
         }
     };
 
-    private Runnable updateVuMeterRunnable = new Runnable() {
+    private AudioLevelSampler.Listener audioLevelListener = new AudioLevelSampler.Listener() {
         @Override
-        public void run() {
-            if (currentSpeaker != null && null != VoxeetSdk.conference()) {
-                double value = VoxeetSdk.conference().getLevel(currentSpeaker);
-                vuMeter.updateMeter(value);
+        public void onLevelsUpdated(@NonNull AudioLevelSampler sampler) {
+            if (currentSpeaker != null) {
+                vuMeter.updateMeter(sampler.getLevel(currentSpeaker.getId()));
             }
-
-            if (mAttached) handler.postDelayed(this, REFRESH_METER);
         }
     };
 
@@ -184,12 +197,26 @@ public class VoxeetSpeakerView extends VoxeetView {
     }
 
     private void afterLeaving() {
+        cancelNextSpeaker();
         currentSpeakerView.setImageDrawable(null);
+        displayedId = null;
+        displayedUrl = null;
+        displayedBucket = 0;
 
         vuMeter.reset();
 
-        handler.removeCallbacks(updateSpeakerRunnable);
-        handler.removeCallbacks(updateVuMeterRunnable);
+        VoxeetToolkit.getInstance().getActiveSpeakerEngine().unregister(activeSpeakerListener);
+        VoxeetToolkit.getInstance().getAudioLevelSampler().unregister(audioLevelListener);
+    }
+
+    /**
+     * Method call once the coalesced events have been dispatched, the selected user may have left
+     */
+    @Override
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
+
+        if (mAttached) updateSpeaker();
     }
 
     /**
@@ -222,12 +249,21 @@ public class VoxeetSpeakerView extends VoxeetView {
         paramsMeter.width = (int) (width + delta);
         paramsMeter.height = (int) (width + delta);
         vuMeter.setLayoutParams(paramsMeter);
+        vuMeter.setInnerRadiusRatio(width / (width + delta));
 
         FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) currentSpeakerView.getLayoutParams();
         params.gravity = Gravity.CENTER;
         params.width = width;
         params.height = width;
         currentSpeakerView.setLayoutParams(params);
+
+        displayAvatar(currentSpeaker);
+    }
+
+    @NoDocumentation
+    @Override
+    protected int getInterests() {
+        return INTEREST_CONFERENCE | INTEREST_LIFECYCLE | INTEREST_UPDATES;
     }
 
     @NoDocumentation
@@ -263,6 +299,29 @@ public class VoxeetSpeakerView extends VoxeetView {
         speakerName.setVisibility(mDisplaySpeakerName ? View.VISIBLE : View.GONE);
     }
 
+    /**
+     * Display the selected user if it is still in the conference, the active speaker otherwise
+     */
+    private void updateSpeaker() {
+        if (selected && currentSpeaker != null && currentSpeaker.getId() != null) {
+            //if we had a user but he disappeared...
+            selected = findUserById(currentSpeaker.getId()) != null;
+        } else {
+            //had a user but predicate did not pass
+            selected = false;
+        }
+
+        if (!selected) {
+            currentSpeaker = findUserById(VoxeetToolkit.getInstance().getActiveSpeakerEngine().getActiveSpeaker());
+            if (currentSpeaker != null && currentSpeaker.getInfo() != null) {
+                speakerName.setText(currentSpeaker.getInfo().getName());
+                invalidateSpeakerName();
+            }
+        }
+
+        displayAvatar(currentSpeaker);
+    }
+
     /**
      * Find user by id conference user.
      *
@@ -270,30 +329,45 @@ public class VoxeetSpeakerView extends VoxeetView {
      * @return the conference user
      */
     private Participant findUserById(@Nullable final String userId) {
-        return VoxeetSdk.conference().findParticipantById(userId);
+        return VoxeetToolkit.getInstance().getParticipantIndex().get(userId);
     }
 
-    private void loadViaPicasso(Participant conferenceUser, int avatarSize, ImageView imageView) {
+    /**
+     * Display the avatar of a participant, only loaded if the participant, its avatar or the size changed
+     * <p>
+     * The avatar of a new speaker is loaded while the previous one is still displayed, then they are cross
+     * faded
+     *
+     * @param participant the participant to display
+     */
+    private void displayAvatar(@Nullable Participant participant) {
+        if (null == participant || currentWidth <= 0) return;
+
         try {
-            String avatarUrl = null;
-            if (null != conferenceUser && null != conferenceUser.getInfo()) {
-                avatarUrl = conferenceUser.getInfo().getAvatarUrl();
+            String participantId = participant.getId();
+            String avatarUrl = null != participant.getInfo() ? participant.getInfo().getAvatarUrl() : null;
+            int size = currentWidth / 2;
+            int bucket = AvatarLoader.bucket(size);
+
+            if (equals(participantId, displayedId) && equals(avatarUrl, displayedUrl) && bucket == displayedBucket) {
+                return;
             }
 
-            if (!TextUtils.isEmpty(avatarUrl)) {
-                Picasso.get()
-                        .load(conferenceUser.getInfo().getAvatarUrl())
-                        .noFade()
-                        .resize(avatarSize, avatarSize)
-                        .placeholder(R.drawable.default_avatar)
-                        .error(R.drawable.default_avatar)
-                        .into(imageView);
+            boolean speakerChanged = null != displayedId && !equals(participantId, displayedId);
+            displayedId = participantId;
+            displayedUrl = avatarUrl;
+            displayedBucket = bucket;
+
+            AvatarLoader loader = VoxeetToolkit.getInstance().getAvatarLoader();
+            if (speakerChanged && null != currentSpeakerView.getDrawable()) {
+                //a load still running for the previous speaker would replace the cross faded avatar
+                Picasso.get().cancelRequest(currentSpeakerView);
+                nextSpeakerLoading = true;
+                loader.preload(avatarUrl, size, nextSpeakerTarget);
             } else {
-                Picasso.get()
-                        .load(R.drawable.default_avatar)
-                        .noFade()
-                        .resize(avatarSize, avatarSize)
-                        .into(imageView);
+                nextSpeakerLoading = false;
+                loader.cancelPreload(nextSpeakerTarget);
+                loader.load(avatarUrl, size, currentSpeakerView);
             }
         } catch (Exception e) {
             ExceptionManager.sendException(e);
@@ -301,6 +375,43 @@ public class VoxeetSpeakerView extends VoxeetView {
         }
     }
 
+    /**
+     * Stop loading the avatar of the next speaker, it will be loaded again on the next update
+     */
+    private void cancelNextSpeaker() {
+        VoxeetToolkit.getInstance().getAvatarLoader().cancelPreload(nextSpeakerTarget);
+        if (nextSpeakerLoading) {
+            nextSpeakerLoading = false;
+            displayedId = null;
+        }
+    }
+
+    private void crossFadeTo(@NonNull Drawable next) {
+        Drawable previous = currentSpeakerView.getDrawable();
+        if (previous instanceof TransitionDrawable) {
+            //a cross fade was running, start from the avatar it was displaying
+            TransitionDrawable running = (TransitionDrawable) previous;
+            previous = running.getDrawable(running.getNumberOfLayers() - 1);
+        }
+
+        if (null == previous) {
+            currentSpeakerView.setImageDrawable(next);
+            return;
+        }
+
+        TransitionDrawable transition = new TransitionDrawable(new Drawable[]{previous, next});
+        //the layers are replaced by their id when rounded
+        transition.setId(0, 0);
+        transition.setId(1, 1);
+        transition.setCrossFadeEnabled(true);
+        currentSpeakerView.setImageDrawable(transition);
+        transition.startTransition(CROSS_FADE_DURATION);
+    }
+
+    private static boolean equals(@Nullable Object left, @Nullable Object right) {
+        return null == left ? null == right : left.equals(right);
+    }
+
     /**
      * Goes to selected mode and focuses on the user selected instead of updating the speaker view
      * depending on the voice levels.
@@ -329,9 +440,9 @@ public class VoxeetSpeakerView extends VoxeetView {
     public void unlockScreen() {
         vuMeter.onParticipantUnselected();
 
-        onResume();
-
         selected = false;
+
+        onResume();
     }
 
     /**
@@ -349,21 +460,18 @@ public class VoxeetSpeakerView extends VoxeetView {
      */
     @Override
     public void onResume() {
-        handler.removeCallbacks(updateSpeakerRunnable);
-        handler.removeCallbacks(updateVuMeterRunnable);
-
-        handler.removeCallbacksAndMessages(updateSpeakerRunnable);
-        handler.removeCallbacksAndMessages(updateVuMeterRunnable);
+        VoxeetToolkit.getInstance().getActiveSpeakerEngine().register(activeSpeakerListener);
+        VoxeetToolkit.getInstance().getAudioLevelSampler().register(audioLevelListener);
 
-        handler.post(updateSpeakerRunnable);
-        handler.post(updateVuMeterRunnable);
+        updateSpeaker();
     }
 
     /**
      * Call this method to pause the various callbacks
      */
     public void onPause() {
-        handler.removeCallbacks(null);
-        handler.removeCallbacksAndMessages(null);
+        cancelNextSpeaker();
+        VoxeetToolkit.getInstance().getActiveSpeakerEngine().unregister(activeSpeakerListener);
+        VoxeetToolkit.getInstance().getAudioLevelSampler().unregister(audioLevelListener);
     }
 }
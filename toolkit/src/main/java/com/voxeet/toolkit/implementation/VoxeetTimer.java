@@ -5,7 +5,6 @@ import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
-import android.os.Handler;
 import android.os.SystemClock;
 import android.support.annotation.ColorRes;
 import android.support.annotation.NonNull;
@@ -17,11 +16,14 @@ import android.widget.TextView;
 import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.models.Conference;
 import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.ToolkitTicker;
 import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
 
 public class VoxeetTimer extends VoxeetView {
 
-    private Handler handler = new Handler();
+    private final static long REFRESH_TIMER = 1000;
+
     private final String TAG = VoxeetTimer.class.getSimpleName();
 
     private final int DEFAULT_MODE = 0;
@@ -47,14 +49,18 @@ public class VoxeetTimer extends VoxeetView {
 
     private int textColor = getResources().getColor(R.color.lightestGrey);
 
-    private Runnable updateTimerThread = new Runnable() {
-        public void run() {
+    /**
+     * Suspended by the ticker while the application is in background, the elapsed time is computed
+     * from the start time so that it is right as soon as it is resumed
+     */
+    private ToolkitTicker.Task updateTimerThread = new ToolkitTicker.Task() {
+        @Override
+        public void onTick() {
             long timeInMilliseconds = SystemClock.uptimeMillis() - startTime;
             int secs = (int) (timeInMilliseconds / 1000);
             int mins = secs / 60;
             secs = secs % 60;
             timer.setText(getResources().getString(R.string.format_timer, mins, secs));
-            handler.postDelayed(this, 1000);
         }
     };
 
@@ -216,7 +222,7 @@ public class VoxeetTimer extends VoxeetView {
         if (action == CONFERENCE_MODE) {
             startTime = SystemClock.uptimeMillis();
 
-            handler.post(updateTimerThread);
+            getTicker().register(updateTimerThread, REFRESH_TIMER, false);
         }
 
         colorAnimation(notInConferenceColor, inConferenceColor);
@@ -252,7 +258,7 @@ public class VoxeetTimer extends VoxeetView {
         if (action == CONFERENCE_MODE) {
             recordingImage.clearAnimation();
 
-            handler.removeCallbacks(updateTimerThread);
+            getTicker().unregister(updateTimerThread);
         }
     }
 
@@ -260,7 +266,7 @@ public class VoxeetTimer extends VoxeetView {
     public void onConferenceLeft() {
         super.onConferenceLeft();
         if (action == CONFERENCE_MODE)
-            handler.removeCallbacks(updateTimerThread);
+            getTicker().unregister(updateTimerThread);
 
         colorAnimation(inConferenceColor, notInConferenceColor);
     }
@@ -269,8 +275,7 @@ public class VoxeetTimer extends VoxeetView {
     public void onDestroy() {
         super.onDestroy();
 
-        handler.removeCallbacks(null);
-        handler.removeCallbacksAndMessages(null);
+        getTicker().unregister(updateTimerThread);
     }
 
     @Override
@@ -292,6 +297,11 @@ public class VoxeetTimer extends VoxeetView {
         //no listeners for this item
     }
 
+    @Override
+    protected int getInterests() {
+        return INTEREST_CONFERENCE | INTEREST_RECORDING | INTEREST_LIFECYCLE;
+    }
+
     @Override
     protected int layout() {
         return R.layout.voxeet_timer_view;
@@ -304,8 +314,13 @@ public class VoxeetTimer extends VoxeetView {
         if (startTime == -1) {
             startTime = SystemClock.uptimeMillis();
 
-            handler.post(updateTimerThread);
+            getTicker().register(updateTimerThread, REFRESH_TIMER, false);
         }
     }
 
+    @NonNull
+    private ToolkitTicker getTicker() {
+        return VoxeetToolkit.getInstance().getTicker();
+    }
+
 }
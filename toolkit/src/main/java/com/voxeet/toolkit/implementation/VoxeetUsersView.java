@@ -3,9 +3,10 @@ package com.voxeet.toolkit.implementation;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.Bundle;
+import android.os.Parcelable;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
@@ -17,12 +18,15 @@ import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.models.Conference;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
+import com.voxeet.sdk.services.ConferenceService;
 import com.voxeet.sdk.services.SessionService;
 import com.voxeet.sdk.utils.Annotate;
 import com.voxeet.sdk.utils.NoDocumentation;
 import com.voxeet.toolkit.R;
 import com.voxeet.toolkit.configuration.Users;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
 import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.utils.ConferenceSnapshot;
 import com.voxeet.toolkit.utils.IParticipantViewListener;
 import com.voxeet.toolkit.utils.ParticipantViewAdapter;
 
@@ -45,7 +49,25 @@ public class VoxeetUsersView extends VoxeetView {
     private boolean displaySelf = false;
     private boolean displayNonAir = true;
 
-    private Handler mHandler;
+    private final static String STATE_SUPER = "super";
+    private final static String STATE_LAYOUT = "layout";
+    private final static String STATE_SELECTED = "selected";
+
+    /**
+     * Selection to restore once the participants are known
+     */
+    private String pendingSelectedParticipant;
+
+    /**
+     * Set once the conference is left or destroyed, the view removed afterwards must not save its state
+     */
+    private boolean conferenceEnded;
+
+    /**
+     * Refresh requested by the events, applied in onConferenceUpdatesFlushed
+     */
+    private Conference invalidatedConference;
+    private boolean invalidateStreams;
 
     /**
      * Instantiates a new Voxeet participant view.
@@ -55,8 +77,6 @@ public class VoxeetUsersView extends VoxeetView {
     @NoDocumentation
     public VoxeetUsersView(Context context) {
         super(context);
-
-        internalInit();
     }
 
     /**
@@ -69,14 +89,9 @@ public class VoxeetUsersView extends VoxeetView {
     public VoxeetUsersView(Context context, AttributeSet attrs) {
         super(context, attrs);
 
-        internalInit();
         updateAttrs(attrs);
     }
 
-    private void internalInit() {
-        mHandler = new Handler(Looper.getMainLooper());
-    }
-
     /**
      * Instantiates a new Voxeet participant view.
      *
@@ -137,14 +152,52 @@ public class VoxeetUsersView extends VoxeetView {
         else if (color != null)
             setSelectedUserColor(color.getColorForState(getDrawableState(), 0));
 
+        if (null != configuration.speaking_user_color)
+            adapter.setSpeakingUserColor(configuration.speaking_user_color);
+
         setNamesEnabled(nameEnabled);
 
         attributes.recycle();
     }
 
     public void update(@NonNull Conference conference) {
-        adapter.setUsers(filter(conference.getParticipants()));
-        adapter.updateUsers();
+        setUsers(getParticipants(conference));
+    }
+
+    /**
+     * Method to call when the list of participants, invited ones included, has been updated
+     *
+     * @param conference_users the new list of users
+     */
+    @Override
+    public void onConferenceUsersListUpdate(List<Participant> conference_users) {
+        super.onConferenceUsersListUpdate(conference_users);
+
+        if (null != adapter && null != conference_users) setUsers(conference_users);
+    }
+
+    /**
+     * Method to call when the conference has been updated
+     *
+     * @param conference_users the participants, invited ones included
+     */
+    @Override
+    public void onConferenceUpdated(@NonNull List<Participant> conference_users) {
+        super.onConferenceUpdated(conference_users);
+
+        if (null != adapter) setUsers(conference_users);
+    }
+
+    /**
+     * Method to call when a conference has been joined
+     *
+     * @param conference the conference
+     */
+    @Override
+    public void onConferenceJoined(@NonNull Conference conference) {
+        super.onConferenceJoined(conference);
+
+        conferenceEnded = false;
     }
 
     /**
@@ -157,8 +210,7 @@ public class VoxeetUsersView extends VoxeetView {
     public void onUserAddedEvent(@NonNull Conference conference, @NonNull Participant user) {
         super.onUserAddedEvent(conference, user);
 
-        adapter.setUsers(filter(conference.getParticipants()));
-        adapter.updateUsers();
+        invalidatedConference = conference;
     }
 
     /**
@@ -171,11 +223,48 @@ public class VoxeetUsersView extends VoxeetView {
     public void onUserUpdatedEvent(@NonNull Conference conference, @NonNull Participant user) {
         super.onUserUpdatedEvent(conference, user);
 
-        postOnUi(() -> {
-            adapter.setUsers(filter(conference.getParticipants()));
+        invalidatedConference = conference;
+    }
+
+    /**
+     * Method called once the coalesced events have been dispatched, the list is refreshed only once
+     */
+    @Override
+    public void onConferenceUpdatesFlushed() {
+        super.onConferenceUpdatesFlushed();
+
+        Conference conference = invalidatedConference;
+        boolean streams = invalidateStreams;
+        invalidatedConference = null;
+        invalidateStreams = false;
+
+        if (null == adapter) return;
+
+        //the layout manager is kept so that the scroll position and the holders survive the update
+        if (null != conference) {
+            setUsers(getParticipants(conference));
+        } else if (streams) {
             adapter.updateUsers();
-            recyclerView.setLayoutManager(horizontalLayout);
-        });
+        }
+    }
+
+    private void setUsers(@NonNull List<Participant> users) {
+        adapter.setUsers(filter(users));
+        adapter.updateUsers();
+        restorePendingSelection();
+    }
+
+    /**
+     * Get the participants to display from the last snapshot, which also holds the invited participants
+     * not in the conference yet
+     *
+     * @param conference the conference, used while no snapshot has been received
+     * @return the participants
+     */
+    @NonNull
+    private List<Participant> getParticipants(@NonNull Conference conference) {
+        ConferenceSnapshot snapshot = getSnapshot();
+        return ConferenceSnapshot.EMPTY != snapshot ? snapshot.getParticipants() : conference.getParticipants();
     }
 
     private List<Participant> filter(List<Participant> users) {
@@ -217,14 +306,8 @@ public class VoxeetUsersView extends VoxeetView {
     @Override
     public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamAddedEvent(conference, user, mediaStream);
-        postOnUi(new Runnable() {
-            @Override
-            public void run() {
-                if (adapter != null) {
-                    adapter.updateUsers();
-                }
-            }
-        });
+
+        invalidateStreams = true;
     }
 
     /**
@@ -237,14 +320,8 @@ public class VoxeetUsersView extends VoxeetView {
     @Override
     public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamUpdatedEvent(conference, user, mediaStream);
-        postOnUi(new Runnable() {
-            @Override
-            public void run() {
-                if (adapter != null) {
-                    adapter.updateUsers();
-                }
-            }
-        });
+
+        invalidateStreams = true;
     }
 
     /**
@@ -257,14 +334,8 @@ public class VoxeetUsersView extends VoxeetView {
     @Override
     public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
         super.onStreamRemovedEvent(conference, user, mediaStream);
-        postOnUi(new Runnable() {
-            @Override
-            public void run() {
-                if (adapter != null) {
-                    adapter.updateUsers();
-                }
-            }
-        });
+
+        invalidateStreams = true;
     }
 
     /**
@@ -274,6 +345,10 @@ public class VoxeetUsersView extends VoxeetView {
     public void onConferenceDestroyed() {
         super.onConferenceDestroyed();
 
+        conferenceEnded = true;
+        invalidatedConference = null;
+        invalidateStreams = false;
+        clearSavedState();
         adapter.clearParticipants();
         adapter.updateUsers();
     }
@@ -285,6 +360,10 @@ public class VoxeetUsersView extends VoxeetView {
     public void onConferenceLeft() {
         super.onConferenceLeft();
 
+        conferenceEnded = true;
+        invalidatedConference = null;
+        invalidateStreams = false;
+        clearSavedState();
         adapter.clearParticipants();
         adapter.updateUsers();
     }
@@ -303,6 +382,93 @@ public class VoxeetUsersView extends VoxeetView {
         setMinimumHeight(getResources().getDimensionPixelSize(R.dimen.conference_view_avatar_size));
     }
 
+    @NoDocumentation
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        //the overlay was removed while the conference was still running, the controller kept the state
+        Parcelable state = getController().getParticipantsState(getConferenceId());
+        if (null != state) onRestoreInstanceState(state);
+    }
+
+    @NoDocumentation
+    @Override
+    protected void onDetachedFromWindow() {
+        String conferenceId = getConferenceId();
+        if (!conferenceEnded && null != conferenceId) {
+            getController().saveParticipantsState(conferenceId, onSaveInstanceState());
+        }
+
+        super.onDetachedFromWindow();
+    }
+
+    @NoDocumentation
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        Bundle bundle = new Bundle();
+        bundle.putParcelable(STATE_SUPER, super.onSaveInstanceState());
+        if (null != horizontalLayout) {
+            bundle.putParcelable(STATE_LAYOUT, horizontalLayout.onSaveInstanceState());
+        }
+        if (null != adapter) {
+            bundle.putString(STATE_SELECTED, adapter.getSelectedParticipantId());
+        }
+        return bundle;
+    }
+
+    @NoDocumentation
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof Bundle)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        Bundle bundle = (Bundle) state;
+        super.onRestoreInstanceState(bundle.getParcelable(STATE_SUPER));
+        restoreState(bundle.getParcelable(STATE_LAYOUT), bundle.getString(STATE_SELECTED));
+    }
+
+    private void restoreState(@Nullable Parcelable layoutState, @Nullable String selectedParticipant) {
+        if (null != layoutState && null != horizontalLayout) {
+            //applied by the layout manager on its next layout pass
+            horizontalLayout.onRestoreInstanceState(layoutState);
+        }
+
+        pendingSelectedParticipant = selectedParticipant;
+        restorePendingSelection();
+    }
+
+    private void restorePendingSelection() {
+        if (null != pendingSelectedParticipant && null != adapter
+                && adapter.restoreSelectedParticipant(pendingSelectedParticipant)) {
+            pendingSelectedParticipant = null;
+        }
+    }
+
+    @Nullable
+    private String getConferenceId() {
+        ConferenceService service = VoxeetSdk.conference();
+        return null != service ? service.getConferenceId() : null;
+    }
+
+    private void clearSavedState() {
+        getController().saveParticipantsState(null, null);
+        pendingSelectedParticipant = null;
+    }
+
+    @NonNull
+    private ConferenceToolkitController getController() {
+        return VoxeetToolkit.getInstance().getConferenceToolkit();
+    }
+
+    @NoDocumentation
+    @Override
+    protected int getInterests() {
+        return INTEREST_CONFERENCE | INTEREST_PARTICIPANTS | INTEREST_STREAMS | INTEREST_UPDATES;
+    }
+
     @NoDocumentation
     @Override
     protected int layout() {
@@ -325,10 +491,6 @@ public class VoxeetUsersView extends VoxeetView {
             adapter.setParticipantListener(listener);
     }
 
-    private void postOnUi(@NonNull Runnable runnable) {
-        mHandler.post(runnable);
-    }
-
     @NoDocumentation
     public void notifyDatasetChanged() {
         if (null != adapter) {
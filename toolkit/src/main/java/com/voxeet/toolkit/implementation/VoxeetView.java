@@ -3,6 +3,7 @@ package com.voxeet.toolkit.implementation;
 import android.content.Context;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.View;
 import android.widget.FrameLayout;
@@ -10,6 +11,7 @@ import android.widget.FrameLayout;
 import com.voxeet.android.media.MediaStream;
 import com.voxeet.sdk.models.Conference;
 import com.voxeet.sdk.models.Participant;
+import com.voxeet.toolkit.utils.ConferenceSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,13 +20,69 @@ import java.util.List;
  * Default implementation for voxeet views
  * <p>
  * Those classes will evolve quickly in the future to reflect much more flexibility
+ * <p>
+ * The callbacks are only forwarded to the children interested in them, see getInterests. The listeners
+ * of each kind of callback are kept in arrays rebuilt when a child is added
  */
 public abstract class VoxeetView extends FrameLayout
         implements IVoxeetView {
 
+    /**
+     * Conference lifecycle : creation, join, leave, destruction and the lists of participants
+     */
+    public final static int INTEREST_CONFERENCE = 1;
+
+    /**
+     * Participants added and updated
+     */
+    public final static int INTEREST_PARTICIPANTS = 1 << 1;
+
+    /**
+     * Streams added, updated and removed
+     */
+    public final static int INTEREST_STREAMS = 1 << 2;
+
+    /**
+     * Recording status
+     */
+    public final static int INTEREST_RECORDING = 1 << 3;
+
+    /**
+     * View lifecycle : resume, stop and destroy
+     */
+    public final static int INTEREST_LIFECYCLE = 1 << 4;
+
+    /**
+     * Flush of the coalesced events and conference snapshots
+     */
+    public final static int INTEREST_UPDATES = 1 << 5;
+
+    public final static int INTEREST_ALL = INTEREST_CONFERENCE | INTEREST_PARTICIPANTS | INTEREST_STREAMS
+            | INTEREST_RECORDING | INTEREST_LIFECYCLE | INTEREST_UPDATES;
+
+    private final static VoxeetView[] NO_LISTENERS = new VoxeetView[0];
+
     @NonNull
     private List<VoxeetView> mListeners;
 
+    @Nullable
+    private VoxeetView mParent;
+
+    /**
+     * Interests of this view and of its children
+     */
+    private int mDispatchInterests;
+
+    private VoxeetView[] mConferenceListeners = NO_LISTENERS;
+    private VoxeetView[] mParticipantListeners = NO_LISTENERS;
+    private VoxeetView[] mStreamListeners = NO_LISTENERS;
+    private VoxeetView[] mRecordingListeners = NO_LISTENERS;
+    private VoxeetView[] mLifecycleListeners = NO_LISTENERS;
+    private VoxeetView[] mUpdateListeners = NO_LISTENERS;
+
+    @NonNull
+    private ConferenceSnapshot mSnapshot = ConferenceSnapshot.EMPTY;
+
     private final String TAG = VoxeetView.class.getSimpleName();
 
     /**
@@ -69,7 +127,7 @@ public abstract class VoxeetView extends FrameLayout
      * @param conference the conference involved
      */
     public void onConferenceJoined(@NonNull Conference conference) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceJoined(conference);
         }
     }
@@ -80,7 +138,7 @@ public abstract class VoxeetView extends FrameLayout
      * @param conference_users the conference id
      */
     public void onConferenceUpdated(@NonNull List<Participant> conference_users) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceUpdated(conference_users);
         }
     }
@@ -89,7 +147,7 @@ public abstract class VoxeetView extends FrameLayout
      * On conference creating.
      */
     public void onConferenceCreating() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceCreating();
         }
     }
@@ -99,7 +157,7 @@ public abstract class VoxeetView extends FrameLayout
      * @param conference the conference involved
      */
     public void onConferenceCreation(@NonNull Conference conference) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceCreation(conference);
         }
     }
@@ -110,21 +168,21 @@ public abstract class VoxeetView extends FrameLayout
      * @param conference the conference
      */
     public void onConferenceJoining(@NonNull Conference conference) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceJoining(conference);
         }
     }
 
     @Override
     public void onConferenceFromNoOneToOneUser() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceFromNoOneToOneUser();
         }
     }
 
     @Override
     public void onConferenceNoMoreUser() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceNoMoreUser();
         }
     }
@@ -132,14 +190,14 @@ public abstract class VoxeetView extends FrameLayout
 
     @Override
     public void onUserAddedEvent(@NonNull Conference conference, @NonNull Participant user) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mParticipantListeners) {
             child.onUserAddedEvent(conference, user);
         }
     }
 
     @Override
     public void onUserUpdatedEvent(@NonNull Conference conference, @NonNull Participant user) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mParticipantListeners) {
             child.onUserUpdatedEvent(conference, user);
         }
     }
@@ -147,25 +205,62 @@ public abstract class VoxeetView extends FrameLayout
 
     @Override
     public void onStreamAddedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mStreamListeners) {
             child.onStreamAddedEvent(conference, user, mediaStream);
         }
     }
 
     @Override
     public void onStreamUpdatedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mStreamListeners) {
             child.onStreamUpdatedEvent(conference, user, mediaStream);
         }
     }
 
     @Override
     public void onStreamRemovedEvent(@NonNull Conference conference, @NonNull Participant user, @NonNull MediaStream mediaStream) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mStreamListeners) {
             child.onStreamRemovedEvent(conference, user, mediaStream);
         }
     }
 
+    /**
+     * Called once the user and stream events coalesced during the last frame have been dispatched
+     * <p>
+     * Costly refreshes should be made here instead of in every event. Not part of IVoxeetView so that
+     * its existing implementations keep compiling
+     */
+    public void onConferenceUpdatesFlushed() {
+        for (VoxeetView child : mUpdateListeners) {
+            child.onConferenceUpdatesFlushed();
+        }
+    }
+
+    /**
+     * Called with the new state of the conference, before onConferenceUpdatesFlushed when both are sent
+     * <p>
+     * The snapshot must be read instead of the SDK so that every view displays the same state : participants,
+     * first streams, active speaker, recording state and local participant
+     *
+     * @param snapshot the new snapshot, never the same instance twice in a row
+     */
+    public void onConferenceSnapshot(@NonNull ConferenceSnapshot snapshot) {
+        mSnapshot = snapshot;
+        for (VoxeetView child : mUpdateListeners) {
+            child.onConferenceSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * Get the last state of the conference received
+     *
+     * @return the snapshot, EMPTY until the view received one
+     */
+    @NonNull
+    public ConferenceSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
     /**
      * An user declined the call
      *
@@ -173,7 +268,7 @@ public abstract class VoxeetView extends FrameLayout
      */
     @Override
     public void onConferenceUserDeclined(String userId) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceUserDeclined(userId);
         }
     }
@@ -184,7 +279,7 @@ public abstract class VoxeetView extends FrameLayout
      * @param recording the recording
      */
     public void onRecordingStatusUpdated(boolean recording) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mRecordingListeners) {
             child.onRecordingStatusUpdated(recording);
         }
     }
@@ -194,7 +289,7 @@ public abstract class VoxeetView extends FrameLayout
      */
     @Override
     public void onConferenceUsersListUpdate(List<Participant> conference_users) {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceUsersListUpdate(conference_users);
         }
     }
@@ -204,7 +299,7 @@ public abstract class VoxeetView extends FrameLayout
      */
     @Override
     public void onConferenceLeaving() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceLeaving();
         }
     }
@@ -214,7 +309,7 @@ public abstract class VoxeetView extends FrameLayout
      */
     @Override
     public void onConferenceDestroyed() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceDestroyed();
         }
     }
@@ -224,28 +319,28 @@ public abstract class VoxeetView extends FrameLayout
      */
     @Override
     public void onConferenceLeft() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mConferenceListeners) {
             child.onConferenceLeft();
         }
     }
 
     @Override
     public void onResume() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mLifecycleListeners) {
             child.onResume();
         }
     }
 
     @Override
     public void onStop() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mLifecycleListeners) {
             child.onStop();
         }
     }
 
     @Override
     public void onDestroy() {
-        for (VoxeetView child : mListeners) {
+        for (VoxeetView child : mLifecycleListeners) {
             child.onDestroy();
         }
     }
@@ -256,6 +351,7 @@ public abstract class VoxeetView extends FrameLayout
     @Override
     public void onInit() {
         mListeners = new ArrayList<>();
+        mDispatchInterests = getInterests();
 
         inflateLayout();
 
@@ -267,7 +363,64 @@ public abstract class VoxeetView extends FrameLayout
     protected void addListener(@NonNull VoxeetView voxeetView) {
         if (mListeners.indexOf(voxeetView) < 0) {
             mListeners.add(voxeetView);
+            voxeetView.mParent = this;
+            rebuildListeners();
+
+            //a view added during the conference starts from the current state
+            if (ConferenceSnapshot.EMPTY != mSnapshot && 0 != (voxeetView.mDispatchInterests & INTEREST_UPDATES)) {
+                voxeetView.onConferenceSnapshot(mSnapshot);
+            }
+        }
+    }
+
+    /**
+     * Get the callbacks this view must receive, its children receive theirs whatever this value
+     * <p>
+     * Only the callbacks matching the interests are forwarded, the others only reach this view when
+     * one of its children needs them. The value must not change after the view is created
+     *
+     * @return a combination of the INTEREST_ constants, INTEREST_ALL by default
+     */
+    protected int getInterests() {
+        return INTEREST_ALL;
+    }
+
+    /**
+     * Compute the listeners of each callback, the parents are updated since they forward the
+     * callbacks wanted by the children of their children
+     */
+    private void rebuildListeners() {
+        int interests = getInterests();
+        for (int i = 0, size = mListeners.size(); i < size; i++) {
+            interests |= mListeners.get(i).mDispatchInterests;
+        }
+        mDispatchInterests = interests;
+
+        mConferenceListeners = listenersOf(INTEREST_CONFERENCE);
+        mParticipantListeners = listenersOf(INTEREST_PARTICIPANTS);
+        mStreamListeners = listenersOf(INTEREST_STREAMS);
+        mRecordingListeners = listenersOf(INTEREST_RECORDING);
+        mLifecycleListeners = listenersOf(INTEREST_LIFECYCLE);
+        mUpdateListeners = listenersOf(INTEREST_UPDATES);
+
+        if (null != mParent) mParent.rebuildListeners();
+    }
+
+    @NonNull
+    private VoxeetView[] listenersOf(int interest) {
+        int count = 0;
+        for (int i = 0, size = mListeners.size(); i < size; i++) {
+            if (0 != (mListeners.get(i).mDispatchInterests & interest)) count++;
+        }
+        if (0 == count) return NO_LISTENERS;
+
+        VoxeetView[] listeners = new VoxeetView[count];
+        int index = 0;
+        for (int i = 0, size = mListeners.size(); i < size; i++) {
+            VoxeetView child = mListeners.get(i);
+            if (0 != (child.mDispatchInterests & interest)) listeners[index++] = child;
         }
+        return listeners;
     }
 
     private void inflateLayout() {
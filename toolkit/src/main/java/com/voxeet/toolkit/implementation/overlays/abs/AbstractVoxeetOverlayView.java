@@ -1,16 +1,25 @@
 package com.voxeet.toolkit.implementation.overlays.abs;
 
 import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
+import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.Point;
+import android.graphics.Rect;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.animation.DynamicAnimation;
+import android.support.animation.SpringAnimation;
+import android.support.animation.SpringForce;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
@@ -22,6 +31,7 @@ import com.voxeet.sdk.exceptions.ExceptionManager;
 import com.voxeet.sdk.utils.ScreenHelper;
 import com.voxeet.toolkit.R;
 import com.voxeet.toolkit.configuration.Overlay;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
 import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.implementation.overlays.OverlayState;
 import com.voxeet.toolkit.providers.logics.IVoxeetSubViewProvider;
@@ -66,6 +76,37 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
     private boolean mRemainExpanded;
     private boolean mCanBeMinizedByTouch;
 
+    /**
+     * Set while a transform animation is running, the layout passes made meanwhile are counted
+     */
+    private boolean mTransformAnimating;
+    private int mLayoutsDuringAnimation;
+
+    /**
+     * Frames of the running transform animation, measured from the updates of its animators
+     */
+    private int mTransformFrames;
+    private long mTransformStartNanos;
+    private long mTransformLastFrameNanos;
+    private long mTransformMaxFrameNanos;
+
+    @Nullable
+    private TransformMetricsListener mTransformMetricsListener;
+
+    /**
+     * Incremented for each transform so that a canceled one does not finish the toggle
+     */
+    private int mTransformGeneration;
+
+    /**
+     * Time in seconds the release velocity of a drag is projected on to choose the corner
+     */
+    private final static float FLING_PROJECTION = 0.2f;
+
+    private VelocityTracker mVelocityTracker;
+    private SpringAnimation mSnapX;
+    private SpringAnimation mSnapY;
+
     /**
      * Instantiates a new Voxeet conference view.
      *
@@ -84,6 +125,7 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         mRemainExpanded = false;
         //isMaxedOut = OverlayState.EXPANDED.equals(overlay);
         overlayState = overlay;
+        VoxeetToolkit.getInstance().getTicker().setOverlayState(overlayState);
 
         mListener = listener;
         mSubViewProvider = provider;
@@ -137,6 +179,13 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         }
     }
 
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+
+        if (mTransformAnimating) mLayoutsDuringAnimation++;
+    }
+
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
@@ -144,6 +193,15 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         WindowHelper.hideKeyboard(this);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        if (null != mSnapX) mSnapX.cancel();
+        if (null != mSnapY) mSnapY.cancel();
+        releaseVelocityTracker();
+    }
+
     @Override
     protected void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
@@ -153,6 +211,7 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
 
         windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
         windowManager.getDefaultDisplay().getMetrics(dm);
+        CornerHelper.invalidateBounds();
 
         if (isExpanded())
             animationHandler.toLandScape(250, previousWidth, dm.widthPixels, previousHeight, dm.heightPixels);
@@ -183,6 +242,9 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
 
         gestureDetector = new GestureDetector(getContext(), new SingleTapConfirm());
 
+        mSnapX = createSnapAnimation(DynamicAnimation.X);
+        mSnapY = createSnapAnimation(DynamicAnimation.Y);
+
         setOnTouchListener(new OnTouchListener() {
             private float dX;
 
@@ -196,22 +258,39 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
                 } else if (!isExpanded()) { // drag n drop only when minimized
                     switch (event.getAction()) {
                         case MotionEvent.ACTION_DOWN:
+                            mSnapX.cancel();
+                            mSnapY.cancel();
+                            if (null == mVelocityTracker) mVelocityTracker = VelocityTracker.obtain();
+                            else mVelocityTracker.clear();
+                            trackVelocity(event);
+
                             dX = getX() - event.getRawX();
                             dY = getY() - event.getRawY();
                             break;
                         case MotionEvent.ACTION_MOVE:
+                            trackVelocity(event);
+
+                            Rect bounds = CornerHelper.getBounds(AbstractVoxeetOverlayView.this, windowManager, getContext());
                             float x = event.getRawX() + dX;
                             float y = event.getRawY() + dY;
-                            if (x < 0)
-                                x = 0;
-                            if (y < ScreenHelper.getStatusBarHeight(getContext()))
-                                y = ScreenHelper.getStatusBarHeight(getContext());
+                            x = Math.max(bounds.left, Math.min(x, bounds.right - getWidth()));
+                            y = Math.max(bounds.top, Math.min(y, bounds.bottom - getHeight()));
 
-                            animate().x(event.getRawX() + dX).y(event.getRawY() + dY)
-                                    .setDuration(0).start();
+                            setX(x);
+                            setY(y);
                             break;
                         case MotionEvent.ACTION_UP:
-                            CornerHelper.sendToCorner(AbstractVoxeetOverlayView.this, windowManager, getContext());
+                        case MotionEvent.ACTION_CANCEL:
+                            float velocityX = 0;
+                            float velocityY = 0;
+                            if (null != mVelocityTracker && MotionEvent.ACTION_UP == event.getAction()) {
+                                trackVelocity(event);
+                                mVelocityTracker.computeCurrentVelocity(1000);
+                                velocityX = mVelocityTracker.getXVelocity();
+                                velocityY = mVelocityTracker.getYVelocity();
+                            }
+                            releaseVelocityTracker();
+                            snapToCorner(velocityX, velocityY);
                         default:
                             return false;
                     }
@@ -221,6 +300,54 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         });
     }
 
+    @NonNull
+    private SpringAnimation createSnapAnimation(@NonNull DynamicAnimation.ViewProperty property) {
+        SpringAnimation animation = new SpringAnimation(this, property);
+        animation.setSpring(new SpringForce()
+                .setStiffness(SpringForce.STIFFNESS_LOW)
+                .setDampingRatio(SpringForce.DAMPING_RATIO_LOW_BOUNCY));
+        return animation;
+    }
+
+    /**
+     * Give a move to the velocity tracker in screen coordinates, the view moving with the finger
+     *
+     * @param event the event received by the view
+     */
+    private void trackVelocity(@NonNull MotionEvent event) {
+        if (null == mVelocityTracker) return;
+
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        event.offsetLocation(offsetX, offsetY);
+        mVelocityTracker.addMovement(event);
+        event.offsetLocation(-offsetX, -offsetY);
+    }
+
+    private void releaseVelocityTracker() {
+        if (null != mVelocityTracker) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * Send the view to the corner it is thrown to, keeping its velocity
+     *
+     * @param velocityX the horizontal velocity in pixels per second
+     * @param velocityY the vertical velocity in pixels per second
+     */
+    private void snapToCorner(float velocityX, float velocityY) {
+        float centerX = getX() + getWidth() / 2 + velocityX * FLING_PROJECTION;
+        float centerY = getY() + getHeight() / 2 + velocityY * FLING_PROJECTION;
+        Point corner = CornerHelper.getCornerPosition(this, windowManager, getContext(), centerX, centerY);
+
+        mSnapX.setStartVelocity(velocityX);
+        mSnapY.setStartVelocity(velocityY);
+        mSnapX.animateToFinalPosition(corner.x);
+        mSnapY.animateToFinalPosition(corner.y);
+    }
+
     /**
      * Toggles view's size to full screen or default size.
      */
@@ -242,6 +369,7 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
     public void expand() {
         //isMaxedOut = true;
         overlayState = OverlayState.EXPANDED;
+        VoxeetToolkit.getInstance().getTicker().setOverlayState(overlayState);
 
         WindowHelper.hideKeyboard(this);
 
@@ -253,6 +381,7 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         if (!mRemainExpanded) {
             //isMaxedOut = false;
             overlayState = OverlayState.MINIMIZED;
+            VoxeetToolkit.getInstance().getTicker().setOverlayState(overlayState);
 
             onPreMinizedView();
             minizeView();
@@ -403,6 +532,12 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         void toLandScape(int duration, final int previousWidth, final int targetWidth, final int previousHeight, final int targetHeight) {
             cancelAnimations();
 
+            if (isTransformAnimation()) {
+                //the layout already matches the previous orientation, only the size changes
+                transform(0, 0, targetWidth, targetHeight);
+                return;
+            }
+
             animate().x(0).y(0).setDuration(0).start();
 
             ValueAnimator height = ValueAnimator.ofInt(previousHeight, targetHeight);
@@ -431,6 +566,11 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         void expand(int duration, final int targetWidth, final int targetHeight) {
             cancelAnimations();
 
+            if (isTransformAnimation()) {
+                transform(0, 0, targetWidth, targetHeight);
+                return;
+            }
+
             animate().x(0).y(0).setDuration(300).start();
 
             ValueAnimator height = ValueAnimator.ofInt(getHeight(), targetHeight);
@@ -459,6 +599,21 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         void collapse(int duration, final int targetWidth, final int targetHeight) {
             cancelAnimations();
 
+            if (isTransformAnimation()) {
+                if (isOverlay()) {
+                    transform(dm.widthPixels - defaultWidth,
+                            ScreenHelper.actionBar(getContext()) + ScreenHelper.getStatusBarHeight(getContext()),
+                            targetWidth, targetHeight);
+                } else if (getParent() != null) {
+                    ViewGroup view = (ViewGroup) getParent();
+                    transform(dm.widthPixels - defaultWidth - view.getPaddingRight(), view.getPaddingTop(),
+                            targetWidth, targetHeight);
+                } else {
+                    transform(getX(), getY(), targetWidth, targetHeight);
+                }
+                return;
+            }
+
             if (isOverlay()) {
                 animate().x(dm.widthPixels - defaultWidth).y(ScreenHelper.actionBar(getContext()) + ScreenHelper.getStatusBarHeight(getContext())).setDuration(300).start();
             } else if (getParent() != null) {
@@ -483,12 +638,134 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
             appendAndStart(animatorSet);
         }
 
+        /**
+         * Move and scale the view from its current bounds to the target ones on a hardware layer
+         * <p>
+         * The view is only resized once the animation ends or is canceled, so that no layout pass is
+         * made on the conference view while animating
+         *
+         * @param targetX      the final horizontal position
+         * @param targetY      the final vertical position
+         * @param targetWidth  the final width
+         * @param targetHeight the final height
+         */
+        private void transform(float targetX, float targetY, final int targetWidth, final int targetHeight) {
+            mTransformGeneration++;
+            int width = getWidth();
+            int height = getHeight();
+            if (width <= 0 || height <= 0) {
+                //not laid out yet, nothing to animate from
+                applySize(targetWidth, targetHeight);
+                setX(targetX);
+                setY(targetY);
+                toggleAfterLayout();
+                return;
+            }
+
+            setPivotX(0);
+            setPivotY(0);
+
+            ObjectAnimator x = ObjectAnimator.ofFloat(AbstractVoxeetOverlayView.this, View.X, getX(), targetX);
+            x.addUpdateListener(TRANSFORM_FRAME_LISTENER);
+
+            AnimatorSet animatorSet = new AnimatorSet();
+            animatorSet.playTogether(
+                    x,
+                    ObjectAnimator.ofFloat(AbstractVoxeetOverlayView.this, View.Y, getY(), targetY),
+                    ObjectAnimator.ofFloat(AbstractVoxeetOverlayView.this, View.SCALE_X, 1f, targetWidth / (float) width),
+                    ObjectAnimator.ofFloat(AbstractVoxeetOverlayView.this, View.SCALE_Y, 1f, targetHeight / (float) height));
+            animatorSet.setDuration(animatonDuration);
+            animatorSet.setInterpolator(new AccelerateInterpolator());
+            animatorSet.addListener(new AnimatorListenerAdapter() {
+                private int previousLayerType;
+
+                @Override
+                public void onAnimationStart(Animator animation) {
+                    previousLayerType = getLayerType();
+                    setLayerType(LAYER_TYPE_HARDWARE, null);
+                    mLayoutsDuringAnimation = 0;
+                    mTransformFrames = 0;
+                    mTransformMaxFrameNanos = 0;
+                    mTransformStartNanos = System.nanoTime();
+                    mTransformAnimating = true;
+                }
+
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    //also called after a cancelation, the view is left at its target size
+                    mTransformAnimating = false;
+                    Log.d(TAG, "transform: " + mLayoutsDuringAnimation + " layout passes while animating");
+                    if (null != mTransformMetricsListener) {
+                        mTransformMetricsListener.onTransformMeasured(mLayoutsDuringAnimation, mTransformFrames,
+                                mTransformMaxFrameNanos, System.nanoTime() - mTransformStartNanos);
+                    }
+
+                    setScaleX(1f);
+                    setScaleY(1f);
+                    setLayerType(previousLayerType, null);
+                    applySize(targetWidth, targetHeight);
+                    toggleAfterLayout();
+                }
+            });
+            appendAndStart(animatorSet);
+        }
+
+        /**
+         * Finish the toggle once the view has been laid out with its new size, sending it to a corner
+         * requires its final bounds
+         */
+        private void toggleAfterLayout() {
+            final int generation = mTransformGeneration;
+            getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    getViewTreeObserver().removeOnPreDrawListener(this);
+                    if (generation == mTransformGeneration) ANIMATOR_LISTENER.onAnimationEnd(null);
+                    return true;
+                }
+            });
+        }
+
+    }
+
+    private boolean isTransformAnimation() {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        ConferenceToolkitController controller = null != toolkit ? toolkit.getConferenceToolkit() : null;
+        return null != controller && controller.Configuration.Overlay.transform_animation;
+    }
+
+    /**
+     * Resize the view and its container with a single layout request
+     *
+     * @param width  the new width
+     * @param height the new height
+     */
+    private void applySize(int width, int height) {
+        ViewGroup.LayoutParams params = getLayoutParams();
+        if (null == params) return;
+
+        params.width = width;
+        params.height = height;
+        if (null != container && null != container.getLayoutParams()) {
+            container.getLayoutParams().width = width;
+            container.getLayoutParams().height = height;
+        }
+        requestLayout();
     }
 
     protected IExpandableViewProviderListener getExpandableViewProviderListener() {
         return mListener;
     }
 
+    /**
+     * Receive the measures of every transform animation, for instance in a test or a benchmark
+     *
+     * @param listener the listener, null to remove it
+     */
+    public void setTransformMetricsListener(@Nullable TransformMetricsListener listener) {
+        mTransformMetricsListener = listener;
+    }
+
     public void lockExpanded(boolean remain_expanded) {
         mRemainExpanded = remain_expanded;
     }
@@ -512,6 +789,18 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         return OverlayState.EXPANDED.equals(overlayState);
     }
 
+    private ValueAnimator.AnimatorUpdateListener TRANSFORM_FRAME_LISTENER = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            long now = System.nanoTime();
+            if (mTransformFrames > 0) {
+                mTransformMaxFrameNanos = Math.max(mTransformMaxFrameNanos, now - mTransformLastFrameNanos);
+            }
+            mTransformLastFrameNanos = now;
+            mTransformFrames++;
+        }
+    };
+
     private ValueAnimator.AnimatorUpdateListener HEIGHT_LISTENER = new ValueAnimator.AnimatorUpdateListener() {
         @Override
         public void onAnimationUpdate(ValueAnimator animation) {
@@ -582,6 +871,9 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
      * note that it is not done to deal with non-ui thread calls
      */
     private void cancelAnimations() {
+        if (null != mSnapX) mSnapX.cancel();
+        if (null != mSnapY) mSnapY.cancel();
+
         try {
             for (AnimatorSet animator : mCurrentAnimations) {
                 if (animator.isStarted() && animator.isRunning()) {
@@ -610,5 +902,19 @@ public abstract class AbstractVoxeetOverlayView extends AbstractVoxeetExpandable
         animator.start();
     }
 
+    /**
+     * Measures of a transform animation
+     */
+    public interface TransformMetricsListener {
+        /**
+         * Called on the main thread once a transform animation ended or was canceled
+         *
+         * @param layoutPasses  the layout passes of the overlay while animating, expected to be 0
+         * @param frames        the frames drawn by the animation
+         * @param maxFrameNanos the longest time between two frames, in nanoseconds
+         * @param totalNanos    the duration of the animation, in nanoseconds
+         */
+        void onTransformMeasured(int layoutPasses, int frames, long maxFrameNanos, long totalNanos);
+    }
 
 }
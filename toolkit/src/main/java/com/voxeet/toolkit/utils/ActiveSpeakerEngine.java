@@ -0,0 +1,216 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.voxeet.sdk.VoxeetSdk;
+import com.voxeet.sdk.events.sdk.ConferenceStatusUpdatedEvent;
+import com.voxeet.sdk.json.ConferenceDestroyedPush;
+import com.voxeet.sdk.json.ConferenceEnded;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.services.SessionService;
+import com.voxeet.toolkit.configuration.ActiveSpeaker;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Derive the active speaker of the conference from the audio levels of the participants
+ * <p>
+ * A participant louder than the active speaker only replaces it once the active speaker has been held
+ * for the configured minimum time and if the difference of levels is above the hysteresis. Listeners
+ * are only called on transitions. The levels are read from the shared AudioLevelSampler, only while
+ * at least one listener is registered. The active speaker is forgotten once the conference is left
+ * <p>
+ * Must be used from the main thread
+ */
+public class ActiveSpeakerEngine implements AudioLevelSampler.Listener {
+
+    private final static ActiveSpeaker DEFAULT_CONFIGURATION = new ActiveSpeaker();
+
+    @NonNull
+    private List<Listener> listeners;
+
+    @NonNull
+    private AudioLevelSampler sampler;
+
+    @Nullable
+    private String activeSpeaker;
+
+    private long activeSpeakerSince;
+
+    private long lastEvaluation;
+
+    private boolean started;
+
+    public ActiveSpeakerEngine(@NonNull AudioLevelSampler sampler) {
+        listeners = new ArrayList<>();
+        this.sampler = sampler;
+    }
+
+    /**
+     * Register a listener, the sampling starts with the first one
+     *
+     * @param listener the listener to call on every change of active speaker
+     */
+    public void register(@NonNull Listener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+
+        if (!started) {
+            started = true;
+            lastEvaluation = 0;
+            sampler.register(this);
+        }
+    }
+
+    /**
+     * Unregister a listener, the sampling stops with the last one
+     *
+     * @param listener the listener to remove
+     */
+    public void unregister(@NonNull Listener listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty() && started) {
+            started = false;
+            sampler.unregister(this);
+        }
+    }
+
+    /**
+     * Get the current active speaker
+     *
+     * @return the id of the participant or null if nobody is in the conference
+     */
+    @Nullable
+    public String getActiveSpeaker() {
+        return activeSpeaker;
+    }
+
+    /**
+     * Forget the active speaker, the next conference starts without any
+     */
+    public void reset() {
+        activeSpeakerSince = 0;
+        lastEvaluation = 0;
+        if (null == activeSpeaker) return;
+
+        activeSpeaker = null;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onActiveSpeakerChanged(null);
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onEvent(@NonNull ConferenceStatusUpdatedEvent event) {
+        switch (event.state) {
+            case LEFT:
+            case ERROR:
+                reset();
+                break;
+            default:
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onEvent(@NonNull ConferenceDestroyedPush event) {
+        reset();
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN)
+    public void onEvent(@NonNull ConferenceEnded event) {
+        reset();
+    }
+
+    @Override
+    public void onLevelsUpdated(@NonNull AudioLevelSampler sampler) {
+        ActiveSpeaker configuration = getConfiguration();
+        long now = SystemClock.uptimeMillis();
+        if (now - lastEvaluation < configuration.samplingRate) return;
+        lastEvaluation = now;
+
+        try {
+            evaluate(configuration, now);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evaluate(@NonNull ActiveSpeaker configuration, long now) {
+        SessionService session = VoxeetSdk.session();
+        if (null == session) return;
+
+        ParticipantIndex index = VoxeetToolkit.getInstance().getParticipantIndex();
+        List<Participant> participants = index.getParticipants();
+        String localParticipantId = session.getParticipantId();
+
+        Participant current = index.get(activeSpeaker);
+        if (null != current && !current.isLocallyActive()) current = null;
+
+        double currentLevel = null != current ? sampler.getLevel(current.getId()) : 0;
+        Participant loudest = null;
+        Participant fallback = null;
+        double loudestLevel = configuration.speakingThreshold;
+
+        for (int i = 0, size = participants.size(); i < size; i++) {
+            Participant participant = participants.get(i);
+            String participantId = participant.getId();
+            if (null == participantId || participantId.equals(localParticipantId)) continue;
+            if (!participant.isLocallyActive()) continue;
+
+            if (null == fallback) fallback = participant;
+            if (participant == current) continue;
+
+            double level = sampler.getLevel(participantId);
+            if (level >= loudestLevel) {
+                loudest = participant;
+                loudestLevel = level;
+            }
+        }
+
+        Participant next = current;
+        if (null == current) {
+            //the active speaker left or was never set, no need to wait
+            next = null != loudest ? loudest : fallback;
+        } else if (null != loudest
+                && now - activeSpeakerSince >= configuration.minimumHoldTime
+                && loudestLevel >= currentLevel + configuration.hysteresis) {
+            next = loudest;
+        }
+
+        String nextId = null != next ? next.getId() : null;
+        if (null == nextId ? null != activeSpeaker : !nextId.equals(activeSpeaker)) {
+            activeSpeaker = nextId;
+            activeSpeakerSince = now;
+
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onActiveSpeakerChanged(activeSpeaker);
+            }
+        }
+    }
+
+    @NonNull
+    private ActiveSpeaker getConfiguration() {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        ConferenceToolkitController controller = null != toolkit ? toolkit.getConferenceToolkit() : null;
+        return null != controller ? controller.Configuration.ActiveSpeaker : DEFAULT_CONFIGURATION;
+    }
+
+    /**
+     * Receive the transitions of the active speaker
+     */
+    public interface Listener {
+        /**
+         * Called when the active speaker changed
+         *
+         * @param participantId the id of the new active speaker, null if nobody can be displayed
+         */
+        void onActiveSpeakerChanged(@Nullable String participantId);
+    }
+}
@@ -0,0 +1,311 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+import com.voxeet.sdk.VoxeetSdk;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.services.ConferenceService;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sample the audio levels of every participant of the conference in a single batch
+ * <p>
+ * The levels are fetched on a background thread at the configured rate and stored in a float array
+ * indexed by participant slot. The listeners are then called at most once per frame on the main thread.
+ * The rate is given by the ToolkitTicker, the sampling is then suspended while the application is in
+ * background and slowed down while the overlay is minimized
+ * <p>
+ * Listeners must be registered and unregistered from the main thread
+ */
+public class AudioLevelSampler implements Choreographer.FrameCallback {
+
+    private final static long DEFAULT_SAMPLING_RATE = 100;
+
+    @NonNull
+    private List<Listener> listeners;
+
+    @NonNull
+    private ToolkitTicker ticker;
+
+    @NonNull
+    private Handler mainHandler;
+
+    @Nullable
+    private HandlerThread thread;
+
+    @Nullable
+    private Handler sampleHandler;
+
+    /**
+     * Participants sampled by the background thread, replaced from the main thread
+     */
+    @NonNull
+    private volatile Participant[] slots;
+
+    /**
+     * Last batch of the background thread, guarded by lock
+     */
+    @NonNull
+    private float[] published;
+
+    @NonNull
+    private Participant[] publishedSlots;
+
+    @NonNull
+    private final Object lock = new Object();
+
+    /**
+     * Levels read by the main thread
+     */
+    @NonNull
+    private float[] levels;
+
+    @NonNull
+    private Participant[] levelsSlots;
+
+    @NonNull
+    private HashMap<String, Integer> slotById;
+
+    @NonNull
+    private AtomicBoolean publishPending;
+
+    /**
+     * Incremented on every stop, guarded by lock. A batch of a previous generation is dropped
+     */
+    private int generation;
+
+    /**
+     * Sampling started by the last register, null while stopped
+     */
+    @Nullable
+    private Sampling sampling;
+
+    private boolean frameScheduled;
+
+    private ToolkitTicker.Task sampleTask = new ToolkitTicker.Task() {
+        @Override
+        public void onTick() {
+            //skip the tick if the previous batch is still being sampled
+            Sampling current = sampling;
+            if (null != sampleHandler && null != current && !current.pending.getAndSet(true)) {
+                sampleHandler.post(current);
+            }
+        }
+    };
+
+    private Runnable schedulePublish = new Runnable() {
+        @Override
+        public void run() {
+            if (!frameScheduled && null != sampleHandler) {
+                frameScheduled = true;
+                Choreographer.getInstance().postFrameCallback(AudioLevelSampler.this);
+            }
+        }
+    };
+
+    public AudioLevelSampler(@NonNull ToolkitTicker ticker) {
+        listeners = new ArrayList<>();
+        this.ticker = ticker;
+        mainHandler = new Handler(Looper.getMainLooper());
+        slots = new Participant[0];
+        published = new float[0];
+        publishedSlots = slots;
+        levels = new float[0];
+        levelsSlots = slots;
+        slotById = new HashMap<>();
+        publishPending = new AtomicBoolean(false);
+    }
+
+    /**
+     * Register a listener, the sampling starts with the first one
+     *
+     * @param listener the listener to call once per frame with new levels
+     */
+    public void register(@NonNull Listener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+
+        if (null == thread) {
+            refreshSlots();
+
+            synchronized (lock) {
+                sampling = new Sampling(generation);
+            }
+            thread = new HandlerThread("AudioLevelSampler");
+            thread.start();
+            sampleHandler = new Handler(thread.getLooper());
+            ticker.register(sampleTask, getSamplingRate(), true);
+        }
+    }
+
+    /**
+     * Unregister a listener, the sampling stops with the last one
+     *
+     * @param listener the listener to remove
+     */
+    public void unregister(@NonNull Listener listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty() && null != thread) {
+            ticker.unregister(sampleTask);
+            sampleHandler.removeCallbacks(sampling);
+            sampleHandler = null;
+            thread.quit();
+            thread = null;
+
+            //a batch may still be running on the old thread, it won't be published
+            synchronized (lock) {
+                generation++;
+            }
+            sampling = null;
+
+            mainHandler.removeCallbacks(schedulePublish);
+            if (frameScheduled) {
+                Choreographer.getInstance().removeFrameCallback(this);
+                frameScheduled = false;
+            }
+            publishPending.set(false);
+        }
+    }
+
+    /**
+     * Get the last level sampled for a participant
+     *
+     * @param participantId the id of the participant
+     * @return the level between 0 and 1, 0 if the participant has not been sampled yet
+     */
+    public float getLevel(@Nullable String participantId) {
+        if (null == participantId) return 0;
+
+        Integer slot = slotById.get(participantId);
+        return null != slot && slot < levels.length ? levels[slot] : 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        publishPending.set(false);
+
+        synchronized (lock) {
+            if (levels.length != published.length) levels = new float[published.length];
+            System.arraycopy(published, 0, levels, 0, published.length);
+
+            if (levelsSlots != publishedSlots) {
+                levelsSlots = publishedSlots;
+                slotById.clear();
+                for (int i = 0; i < levelsSlots.length; i++) {
+                    String participantId = levelsSlots[i].getId();
+                    if (null != participantId) slotById.put(participantId, i);
+                }
+            }
+        }
+
+        //participants may have joined or left meanwhile, the next batch will use the new slots
+        refreshSlots();
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onLevelsUpdated(this);
+        }
+    }
+
+    /**
+     * Called on the background thread
+     */
+    private void sample(@NonNull Sampling sampling) {
+        ConferenceService service = VoxeetSdk.conference();
+        if (null == service) return;
+
+        Participant[] current = slots;
+        float[] sampled = sampling.sampled;
+        if (sampled.length != current.length) sampled = new float[current.length];
+
+        for (int i = 0; i < current.length; i++) {
+            sampled[i] = (float) service.getLevel(current[i]);
+        }
+
+        synchronized (lock) {
+            if (sampling.generation != generation) return;
+
+            sampling.sampled = published;
+            published = sampled;
+            publishedSlots = current;
+        }
+
+        if (!publishPending.getAndSet(true)) mainHandler.post(schedulePublish);
+    }
+
+    /**
+     * Called on the main thread, replace the slots if the participants changed
+     */
+    private void refreshSlots() {
+        List<Participant> participants = VoxeetToolkit.getInstance().getParticipantIndex().getParticipants();
+        Participant[] current = slots;
+
+        boolean changed = current.length != participants.size();
+        for (int i = 0; !changed && i < current.length; i++) {
+            changed = current[i] != participants.get(i);
+        }
+
+        if (changed) slots = participants.toArray(new Participant[participants.size()]);
+    }
+
+    private long getSamplingRate() {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        ConferenceToolkitController controller = null != toolkit ? toolkit.getConferenceToolkit() : null;
+        return null != controller ? controller.Configuration.AudioLevels.samplingRate : DEFAULT_SAMPLING_RATE;
+    }
+
+    /**
+     * Batches of one registration, each one samples into its own buffer
+     */
+    private class Sampling implements Runnable {
+
+        private final int generation;
+
+        @NonNull
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+
+        /**
+         * Written by the background thread only
+         */
+        @NonNull
+        private float[] sampled = new float[0];
+
+        private Sampling(int generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            try {
+                sample(this);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            pending.set(false);
+        }
+    }
+
+    /**
+     * Receive the levels once per frame
+     */
+    public interface Listener {
+        /**
+         * Called on the main thread when new levels are available
+         *
+         * @param sampler the sampler to read the levels from
+         */
+        void onLevelsUpdated(@NonNull AudioLevelSampler sampler);
+    }
+}
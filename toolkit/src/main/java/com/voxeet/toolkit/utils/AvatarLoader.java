@@ -0,0 +1,547 @@
+package com.voxeet.toolkit.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+import com.squareup.picasso.Target;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.toolkit.R;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single entry point to load the avatars of the participants
+ * <p>
+ * The requested sizes are rounded up to a few buckets so that every view displaying the same avatar
+ * shares one decoded bitmap, kept in the memory cache of Picasso. Every request of the same avatar and
+ * bucket has the same key : Picasso attaches the concurrent loads to the one already running instead of
+ * downloading and decoding the image again.
+ * <p>
+ * Once downloaded, the cropped and resized bitmaps are written on disk and the next loads decode
+ * those small files instead of the original images. The rounding is left to the RoundedImageView which
+ * draws them, so the same file serves the oval and the rounded corners views. The least recently used
+ * files are removed past MAX_DISK_ENTRIES. The disk is only accessed from a background thread. A file
+ * which can't be loaded anymore, typically removed by the system with the cache directory, is forgotten
+ * and the avatar is loaded again from its url
+ * <p>
+ * Must be used from the main thread
+ */
+public class AvatarLoader {
+
+    private final static String TAG = AvatarLoader.class.getSimpleName();
+
+    /**
+     * Sizes of the bitmaps, in pixels, the last one is used for the bigger requests
+     */
+    private final static int[] BUCKETS = {64, 128, 256, 512};
+
+    private final static String DIRECTORY = "voxeet_avatars";
+
+    private final static String EXTENSION = ".png";
+
+    private final static int MAX_DISK_ENTRIES = 200;
+
+    /**
+     * Number of urls whose file names are kept in memory
+     */
+    private final static int MAX_FILE_NAMES = 256;
+
+    @NonNull
+    private final Context context;
+
+    @NonNull
+    private final File directory;
+
+    /**
+     * Names of the files on disk, filled from the background thread once created
+     */
+    @NonNull
+    private final Set<String> onDisk;
+
+    /**
+     * Avatars being written on disk, the targets are retained until they are called
+     */
+    @NonNull
+    private final HashMap<String, Target> persisting;
+
+    /**
+     * Loads started by preload, by target of the caller
+     */
+    @NonNull
+    private final HashMap<Target, PreloadTarget> preloading;
+
+    @NonNull
+    private final Handler diskHandler;
+
+    /**
+     * Names of the files of each url, by bucket, so that the urls are not hashed for every bind
+     */
+    @NonNull
+    private final LruCache<String, String[]> fileNames;
+
+    private int prefetchSize;
+
+    public AvatarLoader(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+        directory = new File(this.context.getCacheDir(), DIRECTORY);
+        onDisk = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        persisting = new HashMap<>();
+        preloading = new HashMap<>();
+        fileNames = new LruCache<>(MAX_FILE_NAMES);
+
+        HandlerThread thread = new HandlerThread("AvatarLoader");
+        thread.start();
+        diskHandler = new Handler(thread.getLooper());
+        diskHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                readDirectory();
+            }
+        });
+    }
+
+    /**
+     * Get the size of the bitmap loaded for a view
+     *
+     * @param size the size of the view in pixels
+     * @return the smallest bucket holding this size, the biggest bucket if none
+     */
+    public static int bucket(int size) {
+        for (int bucket : BUCKETS) {
+            if (size <= bucket) return bucket;
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    /**
+     * Display an avatar, the default avatar is displayed while loading and if it can't be loaded
+     *
+     * @param url       the url of the avatar, null to display the default avatar
+     * @param size      the size of the view in pixels
+     * @param imageView the view displaying the avatar
+     */
+    public void load(@Nullable final String url, final int size, @NonNull final ImageView imageView) {
+        int bucket = bucket(size);
+
+        if (TextUtils.isEmpty(url)) {
+            Picasso.get().load(R.drawable.default_avatar)
+                    .noFade()
+                    .resize(bucket, bucket)
+                    .into(imageView);
+            return;
+        }
+
+        final String name = fileName(url, bucket);
+        Callback callback;
+        if (isOnDisk(name)) {
+            callback = new Callback() {
+                @Override
+                public void onSuccess() {
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    forget(name);
+                    load(url, size, imageView);
+                }
+            };
+        } else {
+            callback = persistOnSuccess(url, bucket, name);
+        }
+
+        request(url, bucket, name)
+                .noFade()
+                .placeholder(R.drawable.default_avatar)
+                .error(R.drawable.default_avatar)
+                .into(imageView, callback);
+    }
+
+    /**
+     * Load an avatar without displaying it, typically to animate the change of avatar once it is ready
+     * <p>
+     * The target is called with the default avatar if the avatar can't be loaded. A single load is kept
+     * per target, the previous one is canceled
+     *
+     * @param url    the url of the avatar, null to load the default avatar
+     * @param size   the size of the view in pixels
+     * @param target the target, retained until it is called
+     */
+    public void preload(@Nullable String url, int size, @NonNull Target target) {
+        cancelPreload(target);
+
+        int bucket = bucket(size);
+        if (TextUtils.isEmpty(url)) {
+            PreloadTarget preload = new PreloadTarget(target, null, bucket, null);
+            preloading.put(target, preload);
+            Picasso.get().load(R.drawable.default_avatar)
+                    .resize(bucket, bucket)
+                    .into(preload);
+            return;
+        }
+
+        String name = fileName(url, bucket);
+        PreloadTarget preload = new PreloadTarget(target, url, bucket, isOnDisk(name) ? name : null);
+        preloading.put(target, preload);
+        request(url, bucket, name)
+                .error(R.drawable.default_avatar)
+                .into(preload);
+    }
+
+    /**
+     * Cancel the load started by preload for a target, if any
+     *
+     * @param target the target given to preload
+     */
+    public void cancelPreload(@NonNull Target target) {
+        PreloadTarget preload = preloading.remove(target);
+        if (null != preload) Picasso.get().cancelRequest(preload);
+    }
+
+    /**
+     * Load the avatars of participants in the memory cache before they are displayed
+     *
+     * @param participants the participants, typically the ones just invited
+     */
+    public void prefetch(@NonNull List<Participant> participants) {
+        int size = getPrefetchSize();
+        for (Participant participant : participants) {
+            if (null != participant && null != participant.getInfo()) {
+                prefetch(participant.getInfo().getAvatarUrl(), size);
+            }
+        }
+    }
+
+    /**
+     * Load an avatar in the memory cache before it is displayed
+     *
+     * @param url  the url of the avatar
+     * @param size the size of the view which will display it, in pixels
+     */
+    public void prefetch(@Nullable final String url, final int size) {
+        if (TextUtils.isEmpty(url)) return;
+
+        int bucket = bucket(size);
+        final String name = fileName(url, bucket);
+        if (!isOnDisk(name)) {
+            request(url, bucket, name).fetch(persistOnSuccess(url, bucket, name));
+            return;
+        }
+
+        request(url, bucket, name).fetch(new Callback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onError(Exception e) {
+                forget(name);
+                prefetch(url, size);
+            }
+        });
+    }
+
+    /**
+     * Remove the avatars written on disk, the memory cache is managed by Picasso
+     */
+    public void clearDisk() {
+        diskHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                File[] files = directory.listFiles();
+                if (null != files) {
+                    for (File file : files) file.delete();
+                }
+                onDisk.clear();
+            }
+        });
+    }
+
+    /**
+     * Create the request of an avatar, from the disk if it was already written
+     * <p>
+     * The stable key gives the same key in memory to both sources
+     */
+    @NonNull
+    private RequestCreator request(@NonNull String url, int bucket, @Nullable String name) {
+        RequestCreator request;
+        if (isOnDisk(name)) {
+            final File file = new File(directory, name);
+            request = Picasso.get().load(file);
+            diskHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    file.setLastModified(System.currentTimeMillis());
+                }
+            });
+        } else {
+            request = Picasso.get().load(url);
+        }
+
+        return request.stableKey(url)
+                .resize(bucket, bucket)
+                .centerCrop();
+    }
+
+    private boolean isOnDisk(@Nullable String name) {
+        return null != name && onDisk.contains(name);
+    }
+
+    /**
+     * Forget a file which could not be loaded, the next requests use the url
+     *
+     * @param name the name of the file
+     */
+    private void forget(@NonNull final String name) {
+        if (!onDisk.remove(name)) return;
+
+        Log.d(TAG, "forget: " + name + " can't be loaded from the disk");
+        diskHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                new File(directory, name).delete();
+            }
+        });
+    }
+
+    @Nullable
+    private Callback persistOnSuccess(@NonNull final String url, final int bucket, @Nullable final String name) {
+        if (null == name || onDisk.contains(name)) return null;
+
+        return new Callback() {
+            @Override
+            public void onSuccess() {
+                persist(url, bucket, name);
+            }
+
+            @Override
+            public void onError(Exception e) {
+            }
+        };
+    }
+
+    /**
+     * Write an avatar just loaded on disk, the bitmap is taken from the memory cache
+     */
+    private void persist(@NonNull String url, int bucket, @NonNull final String name) {
+        if (onDisk.contains(name) || persisting.containsKey(name)) return;
+
+        Target target = new Target() {
+            @Override
+            public void onBitmapLoaded(final Bitmap bitmap, Picasso.LoadedFrom from) {
+                persisting.remove(name);
+                diskHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        write(name, bitmap);
+                    }
+                });
+            }
+
+            @Override
+            public void onBitmapFailed(Exception e, Drawable errorDrawable) {
+                persisting.remove(name);
+            }
+
+            @Override
+            public void onPrepareLoad(Drawable placeHolderDrawable) {
+            }
+        };
+        persisting.put(name, target);
+
+        Picasso.get().load(url)
+                .stableKey(url)
+                .resize(bucket, bucket)
+                .centerCrop()
+                .into(target);
+    }
+
+    private void readDirectory() {
+        File[] files = directory.listFiles();
+        if (null == files) return;
+
+        for (File file : files) onDisk.add(file.getName());
+    }
+
+    private void write(@NonNull String name, @NonNull Bitmap bitmap) {
+        if (!directory.exists() && !directory.mkdirs()) return;
+
+        File file = new File(directory, name);
+        File temporary = new File(directory, name + ".tmp");
+        FileOutputStream stream = null;
+        try {
+            stream = new FileOutputStream(temporary);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, stream);
+            stream.close();
+            stream = null;
+
+            //only the complete files are visible to the readers
+            if (temporary.renameTo(file)) {
+                onDisk.add(name);
+                trim();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "write: error " + e.getMessage());
+        } finally {
+            if (null != stream) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    //nothing to do
+                }
+            }
+            temporary.delete();
+        }
+    }
+
+    /**
+     * Remove the least recently used files
+     */
+    private void trim() {
+        if (onDisk.size() <= MAX_DISK_ENTRIES) return;
+
+        File[] files = directory.listFiles();
+        if (null == files || files.length <= MAX_DISK_ENTRIES) return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File left, File right) {
+                long l = left.lastModified();
+                long r = right.lastModified();
+                return l < r ? -1 : (l == r ? 0 : 1);
+            }
+        });
+
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            onDisk.remove(files[i].getName());
+            files[i].delete();
+        }
+    }
+
+    private int getPrefetchSize() {
+        if (0 == prefetchSize) {
+            prefetchSize = context.getResources().getDimensionPixelSize(R.dimen.meeting_list_avatar_double);
+        }
+        return prefetchSize;
+    }
+
+    /**
+     * Get the name of the file of an avatar, the url is only hashed the first time
+     */
+    @Nullable
+    private String fileName(@NonNull String url, int bucket) {
+        int index = Arrays.binarySearch(BUCKETS, bucket);
+        if (index < 0) return null;
+
+        String[] names = fileNames.get(url);
+        if (null == names) {
+            String hash = hash(url);
+            if (null == hash) return null;
+
+            names = new String[BUCKETS.length];
+            for (int i = 0; i < BUCKETS.length; i++) {
+                names[i] = hash + '_' + BUCKETS[i] + EXTENSION;
+            }
+            fileNames.put(url, names);
+        }
+        return names[index];
+    }
+
+    @Nullable
+    private static String hash(@NonNull String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes("UTF-8"));
+
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            Log.e(TAG, "hash: error " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forward a preloaded avatar to the target of the caller, and write it on disk when downloaded
+     */
+    private class PreloadTarget implements Target {
+
+        @NonNull
+        private final Target target;
+
+        @Nullable
+        private final String url;
+
+        private final int bucket;
+
+        /**
+         * Name of the file loaded, null when loaded from the url
+         */
+        @Nullable
+        private final String diskName;
+
+        private PreloadTarget(@NonNull Target target, @Nullable String url, int bucket, @Nullable String diskName) {
+            this.target = target;
+            this.url = url;
+            this.bucket = bucket;
+            this.diskName = diskName;
+        }
+
+        @Override
+        public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+            if (preloading.get(target) == this) preloading.remove(target);
+
+            if (null != url && Picasso.LoadedFrom.NETWORK == from) {
+                String name = fileName(url, bucket);
+                if (null != name) persist(url, bucket, name);
+            }
+            target.onBitmapLoaded(bitmap, from);
+        }
+
+        @Override
+        public void onBitmapFailed(Exception e, Drawable errorDrawable) {
+            boolean current = preloading.get(target) == this;
+            if (current) preloading.remove(target);
+
+            if (null != diskName) {
+                forget(diskName);
+                if (current) {
+                    preload(url, bucket, target);
+                    return;
+                }
+            }
+            target.onBitmapFailed(e, errorDrawable);
+        }
+
+        @Override
+        public void onPrepareLoad(Drawable placeHolderDrawable) {
+            target.onPrepareLoad(placeHolderDrawable);
+        }
+    }
+}
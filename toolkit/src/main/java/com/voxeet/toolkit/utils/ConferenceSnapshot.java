@@ -0,0 +1,331 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.android.media.MediaStreamType;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable state of the conference as displayed by the toolkit
+ * <p>
+ * Every view handling the same flush reads the same participants, statuses, streams, active speaker and
+ * recording state, whatever the SDK changes meanwhile. A new snapshot is derived once per flush : the
+ * participants left untouched keep their state instance and a change which does not modify anything gives
+ * back the same snapshot, so that the views can compare snapshots by reference
+ */
+public class ConferenceSnapshot {
+
+    public final static ConferenceSnapshot EMPTY = new ConferenceSnapshot(null, null,
+            Collections.<String, ParticipantState>emptyMap(), 0, null, false);
+
+    @Nullable
+    private final String conferenceId;
+
+    @Nullable
+    private final String localParticipantId;
+
+    /**
+     * Unmodifiable, in the order the participants were added
+     */
+    @NonNull
+    private final Map<String, ParticipantState> participants;
+
+    /**
+     * Number of remote participants on air or connecting with streams
+     */
+    private final int remoteCount;
+
+    @Nullable
+    private final String activeSpeakerId;
+
+    private final boolean recording;
+
+    @Nullable
+    private List<Participant> list;
+
+    private ConferenceSnapshot(@Nullable String conferenceId,
+                               @Nullable String localParticipantId,
+                               @NonNull Map<String, ParticipantState> participants,
+                               int remoteCount,
+                               @Nullable String activeSpeakerId,
+                               boolean recording) {
+        this.conferenceId = conferenceId;
+        this.localParticipantId = localParticipantId;
+        this.participants = participants;
+        this.remoteCount = remoteCount;
+        this.activeSpeakerId = activeSpeakerId;
+        this.recording = recording;
+    }
+
+    /**
+     * Create a snapshot of a list of participants
+     *
+     * @param participants the participants of the conference
+     * @return a new snapshot keeping the conference and the local participant
+     */
+    @NonNull
+    public ConferenceSnapshot withParticipants(@NonNull List<Participant> participants) {
+        LinkedHashMap<String, ParticipantState> states = new LinkedHashMap<>();
+        for (int i = 0, size = participants.size(); i < size; i++) {
+            Participant participant = participants.get(i);
+            if (null == participant || null == participant.getId()) continue;
+
+            ParticipantState previous = this.participants.get(participant.getId());
+            ParticipantState state = new ParticipantState(participant);
+            states.put(participant.getId(), null != previous && previous.same(state) ? previous : state);
+        }
+
+        return new ConferenceSnapshot(conferenceId, localParticipantId,
+                Collections.unmodifiableMap(states), countRemote(states, localParticipantId), activeSpeakerId, recording);
+    }
+
+    /**
+     * Derive a snapshot with the current state of the participants changed during a flush
+     * <p>
+     * The participants are copied at most once, whatever the number of changes
+     *
+     * @param changed the participants added or updated, duplicates are allowed
+     * @return this snapshot if the state of none of them changed
+     */
+    @NonNull
+    public ConferenceSnapshot withChangedParticipants(@NonNull Collection<Participant> changed) {
+        LinkedHashMap<String, ParticipantState> states = null;
+        int count = remoteCount;
+
+        for (Participant participant : changed) {
+            String participantId = participant.getId();
+            if (null == participantId) continue;
+
+            ParticipantState previous = null != states ? states.get(participantId) : participants.get(participantId);
+            ParticipantState state = new ParticipantState(participant);
+            if (null != previous && previous.same(state)) continue;
+
+            //the other states are shared with this snapshot
+            if (null == states) states = new LinkedHashMap<>(participants);
+            states.put(participantId, state);
+            count += (isRemote(state) ? 1 : 0) - (null != previous && isRemote(previous) ? 1 : 0);
+        }
+
+        if (null == states) return this;
+        return new ConferenceSnapshot(conferenceId, localParticipantId, Collections.unmodifiableMap(states), count,
+                activeSpeakerId, recording);
+    }
+
+    @NonNull
+    public ConferenceSnapshot withConference(@Nullable String conferenceId, @Nullable String localParticipantId) {
+        boolean sameLocal = equals(this.localParticipantId, localParticipantId);
+        if (equals(this.conferenceId, conferenceId) && sameLocal) return this;
+
+        int count = sameLocal ? remoteCount : countRemote(participants, localParticipantId);
+        return new ConferenceSnapshot(conferenceId, localParticipantId, participants, count, activeSpeakerId, recording);
+    }
+
+    @NonNull
+    public ConferenceSnapshot withActiveSpeaker(@Nullable String activeSpeakerId) {
+        if (equals(this.activeSpeakerId, activeSpeakerId)) return this;
+        return new ConferenceSnapshot(conferenceId, localParticipantId, participants, remoteCount, activeSpeakerId, recording);
+    }
+
+    @NonNull
+    public ConferenceSnapshot withRecording(boolean recording) {
+        if (this.recording == recording) return this;
+        return new ConferenceSnapshot(conferenceId, localParticipantId, participants, remoteCount, activeSpeakerId, recording);
+    }
+
+    @Nullable
+    public String getConferenceId() {
+        return conferenceId;
+    }
+
+    /**
+     * @return the id of the local participant, null while not connected
+     */
+    @Nullable
+    public String getLocalParticipantId() {
+        return localParticipantId;
+    }
+
+    /**
+     * @param participantId the id of a participant
+     * @return true if the id is the one of the local participant
+     */
+    public boolean isLocal(@Nullable String participantId) {
+        return null != participantId && participantId.equals(localParticipantId);
+    }
+
+    /**
+     * @param participantId the id of a participant
+     * @return its state or null if it is not in the conference
+     */
+    @Nullable
+    public ParticipantState get(@Nullable String participantId) {
+        return null != participantId ? participants.get(participantId) : null;
+    }
+
+    /**
+     * Get the first stream of a given type of a participant
+     *
+     * @param participantId the id of the participant
+     * @param type          the type of stream, only Camera and ScreenShare are kept
+     * @return the stream or null
+     */
+    @Nullable
+    public MediaStream getStream(@Nullable String participantId, @NonNull MediaStreamType type) {
+        ParticipantState state = get(participantId);
+        return null != state ? state.getStream(type) : null;
+    }
+
+    /**
+     * @return the id of the active speaker, null if nobody can be displayed
+     */
+    @Nullable
+    public String getActiveSpeakerId() {
+        return activeSpeakerId;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Get the participants of the conference and the invited ones not in it yet, in the order they were added
+     *
+     * @return an unmodifiable list, created once per snapshot
+     */
+    @NonNull
+    public List<Participant> getParticipants() {
+        if (null == list) {
+            ArrayList<Participant> participants = new ArrayList<>(this.participants.size());
+            for (ParticipantState state : this.participants.values()) participants.add(state.getParticipant());
+            list = Collections.unmodifiableList(participants);
+        }
+        return list;
+    }
+
+    /**
+     * Check if a remote participant is in the conference, on air or connecting with streams
+     *
+     * @return true if the local participant is not alone
+     */
+    public boolean hasParticipants() {
+        return remoteCount > 0;
+    }
+
+    private boolean isRemote(@NonNull ParticipantState state) {
+        return !isLocal(state.getId()) && state.isPresent();
+    }
+
+    private static int countRemote(@NonNull Map<String, ParticipantState> states, @Nullable String localParticipantId) {
+        int count = 0;
+        for (ParticipantState state : states.values()) {
+            if (!state.getId().equals(localParticipantId) && state.isPresent()) count++;
+        }
+        return count;
+    }
+
+    private static boolean equals(@Nullable Object left, @Nullable Object right) {
+        return null == left ? null == right : left.equals(right);
+    }
+
+    @Override
+    public String toString() {
+        return "ConferenceSnapshot{" + conferenceId + " local=" + localParticipantId
+                + " participants=" + participants.size() + " remote=" + remoteCount
+                + " speaker=" + activeSpeakerId + " recording=" + recording + "}";
+    }
+
+    /**
+     * Immutable state of a participant in a snapshot
+     */
+    public static class ParticipantState {
+
+        @NonNull
+        private final Participant participant;
+
+        @NonNull
+        private final String id;
+
+        @Nullable
+        private final ConferenceParticipantStatus status;
+
+        private final boolean hasStreams;
+
+        @Nullable
+        private final MediaStream camera;
+
+        @Nullable
+        private final MediaStream screenShare;
+
+        private ParticipantState(@NonNull Participant participant) {
+            this.participant = participant;
+            id = participant.getId();
+            status = participant.getStatus();
+            hasStreams = participant.streams().size() > 0;
+            camera = participant.streamsHandler().getFirst(MediaStreamType.Camera);
+            screenShare = participant.streamsHandler().getFirst(MediaStreamType.ScreenShare);
+        }
+
+        /**
+         * Get the participant from the SDK, its fields may have changed since the snapshot was taken
+         *
+         * @return the participant
+         */
+        @NonNull
+        public Participant getParticipant() {
+            return participant;
+        }
+
+        @NonNull
+        public String getId() {
+            return id;
+        }
+
+        @Nullable
+        public ConferenceParticipantStatus getStatus() {
+            return status;
+        }
+
+        public boolean hasStreams() {
+            return hasStreams;
+        }
+
+        /**
+         * @param type the type of stream, only Camera and ScreenShare are kept
+         * @return the first stream of this type when the snapshot was taken, or null
+         */
+        @Nullable
+        public MediaStream getStream(@NonNull MediaStreamType type) {
+            switch (type) {
+                case Camera:
+                    return camera;
+                case ScreenShare:
+                    return screenShare;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return true if the participant is on air or connecting with streams
+         */
+        private boolean isPresent() {
+            return ConferenceParticipantStatus.ON_AIR.equals(status)
+                    || (ConferenceParticipantStatus.CONNECTING.equals(status) && hasStreams);
+        }
+
+        private boolean same(@NonNull ParticipantState other) {
+            return participant == other.participant && status == other.status && hasStreams == other.hasStreams
+                    && camera == other.camera && screenShare == other.screenShare;
+        }
+    }
+}
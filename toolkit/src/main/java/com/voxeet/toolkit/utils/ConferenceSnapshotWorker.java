@@ -0,0 +1,204 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+import com.voxeet.sdk.models.Participant;
+
+import java.util.List;
+
+/**
+ * Derive the ConferenceSnapshot on a background thread and publish it to the main thread once per frame
+ * <p>
+ * The snapshot is owned by the thread of the given looper : every change is posted to it and folded there,
+ * the main thread only receives the immutable results. When several changes are folded before the next
+ * frame, only the last snapshot is published
+ * <p>
+ * The changes and reset must be requested from the main thread, the lists given are owned by the worker
+ */
+public class ConferenceSnapshotWorker implements Choreographer.FrameCallback {
+
+    @NonNull
+    private Listener listener;
+
+    @NonNull
+    private Handler worker;
+
+    @NonNull
+    private Handler main;
+
+    /**
+     * Only used from the worker thread
+     */
+    @NonNull
+    private ConferenceSnapshot snapshot = ConferenceSnapshot.EMPTY;
+
+    /**
+     * Incremented on reset, the results of the changes requested before are dropped. Only used from the main thread
+     */
+    private int generation;
+
+    /**
+     * Guard the result waiting for the next frame
+     */
+    @NonNull
+    private final Object lock = new Object();
+
+    @Nullable
+    private ConferenceSnapshot result;
+
+    private int resultGeneration;
+
+    private boolean resultFlushed;
+
+    private boolean scheduled;
+
+    /**
+     * Post the frame callback from the main thread, the Choreographer is bound to the thread calling it
+     */
+    private Runnable postFrameCallback = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(ConferenceSnapshotWorker.this);
+        }
+    };
+
+    private Runnable resetSnapshot = new Runnable() {
+        @Override
+        public void run() {
+            snapshot = ConferenceSnapshot.EMPTY;
+        }
+    };
+
+    public ConferenceSnapshotWorker(@NonNull Looper looper, @NonNull Listener listener) {
+        this.listener = listener;
+        worker = new Handler(looper);
+        main = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Replace the participants of the snapshot
+     *
+     * @param participants       the participants of the conference and the invited ones
+     * @param conferenceId       the id of the current conference
+     * @param localParticipantId the id of the local participant
+     */
+    public void setParticipants(@NonNull final List<Participant> participants,
+                                @Nullable final String conferenceId,
+                                @Nullable final String localParticipantId) {
+        final int generation = this.generation;
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                snapshot = snapshot.withParticipants(participants).withConference(conferenceId, localParticipantId);
+                publish(generation, false);
+            }
+        });
+    }
+
+    /**
+     * Fold the participants changed by a flush of the coalesced updates
+     *
+     * @param changed            the participants added or updated, duplicates are allowed
+     * @param conferenceId       the id of the current conference
+     * @param localParticipantId the id of the local participant
+     */
+    public void fold(@NonNull final List<Participant> changed,
+                     @Nullable final String conferenceId,
+                     @Nullable final String localParticipantId) {
+        final int generation = this.generation;
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                snapshot = snapshot.withChangedParticipants(changed).withConference(conferenceId, localParticipantId);
+                publish(generation, true);
+            }
+        });
+    }
+
+    /**
+     * @param activeSpeakerId the id of the new active speaker, null if nobody can be displayed
+     */
+    public void setActiveSpeaker(@Nullable final String activeSpeakerId) {
+        final int generation = this.generation;
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                snapshot = snapshot.withActiveSpeaker(activeSpeakerId);
+                publish(generation, false);
+            }
+        });
+    }
+
+    /**
+     * @param recording true if the conference is being recorded
+     */
+    public void setRecording(final boolean recording) {
+        final int generation = this.generation;
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                snapshot = snapshot.withRecording(recording);
+                publish(generation, false);
+            }
+        });
+    }
+
+    /**
+     * Start again from an empty snapshot, the results not published yet are dropped
+     */
+    public void reset() {
+        generation++;
+        synchronized (lock) {
+            result = null;
+            resultFlushed = false;
+        }
+        worker.post(resetSnapshot);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        ConferenceSnapshot published;
+        boolean flushed;
+        synchronized (lock) {
+            scheduled = false;
+            published = resultGeneration == generation ? result : null;
+            flushed = resultFlushed;
+            result = null;
+            resultFlushed = false;
+        }
+
+        if (null != published) listener.onSnapshot(published, flushed);
+    }
+
+    /**
+     * Called from the worker thread
+     */
+    private void publish(int generation, boolean flushed) {
+        synchronized (lock) {
+            if (resultGeneration != generation) resultFlushed = false;
+
+            result = snapshot;
+            resultGeneration = generation;
+            resultFlushed |= flushed;
+
+            if (scheduled) return;
+            scheduled = true;
+        }
+        main.post(postFrameCallback);
+    }
+
+    /**
+     * Receive the snapshots on the main thread
+     */
+    public interface Listener {
+        /**
+         * @param snapshot the last snapshot folded, may be the same instance as the previous one
+         * @param flushed  true if a flush of the coalesced updates was folded into it
+         */
+        void onSnapshot(@NonNull ConferenceSnapshot snapshot, boolean flushed);
+    }
+}
@@ -0,0 +1,335 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.sdk.models.Conference;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesce the participant and stream events and apply them on a Choreographer frame
+ * <p>
+ * Events received for the same participant are merged : a participant added then updated
+ * is only dispatched once, as are the multiple events for one of its streams. The pending events are
+ * applied on the first frame without any new event or when the oldest one reached the maximum latency
+ * <p>
+ * The events can be received from any thread, they are always dispatched on the main thread. flush,
+ * clear and open must be called from the main thread
+ * <p>
+ * Once a conference is cleared, its events still in flight are dropped until it is opened again
+ */
+public class ConferenceUpdateScheduler implements Choreographer.FrameCallback {
+
+    private final static int STREAM_ADDED = 0;
+    private final static int STREAM_UPDATED = 1;
+    private final static int STREAM_REMOVED = 2;
+
+    @NonNull
+    private Listener listener;
+
+    /**
+     * Guard the pending events, the recycled holders and the scheduling state
+     */
+    @NonNull
+    private final Object lock = new Object();
+
+    @NonNull
+    private Handler handler;
+
+    /**
+     * Post the frame callback from the main thread when an event is received from another thread
+     */
+    private Runnable postFrameCallback = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(ConferenceUpdateScheduler.this);
+        }
+    };
+
+    @NonNull
+    private LinkedHashMap<String, PendingParticipant> pending;
+
+    /**
+     * Swapped with pending while dispatching so that new events can be received meanwhile
+     */
+    @NonNull
+    private LinkedHashMap<String, PendingParticipant> dispatching;
+
+    /**
+     * Recycled holders to prevent allocations for every burst of events
+     */
+    @NonNull
+    private List<PendingParticipant> recycled;
+
+    private boolean scheduled;
+
+    private boolean receivedSinceLastFrame;
+
+    private long firstPendingEventTime;
+
+    /**
+     * Id of the last conference cleared, its late events are dropped
+     */
+    @Nullable
+    private String closedConferenceId;
+
+    public ConferenceUpdateScheduler(@NonNull Listener listener) {
+        this.listener = listener;
+        handler = new Handler(Looper.getMainLooper());
+        pending = new LinkedHashMap<>();
+        dispatching = new LinkedHashMap<>();
+        recycled = new ArrayList<>();
+    }
+
+    public void onParticipantAdded(@NonNull Conference conference, @NonNull Participant participant) {
+        synchronized (lock) {
+            PendingParticipant holder = obtain(conference, participant);
+            if (null != holder) holder.added = true;
+        }
+    }
+
+    public void onParticipantUpdated(@NonNull Conference conference, @NonNull Participant participant) {
+        synchronized (lock) {
+            PendingParticipant holder = obtain(conference, participant);
+            if (null != holder) holder.updated = true;
+        }
+    }
+
+    public void onStreamAdded(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+        synchronized (lock) {
+            PendingParticipant holder = obtain(conference, participant);
+            if (null != holder) holder.putStream(stream, STREAM_ADDED);
+        }
+    }
+
+    public void onStreamUpdated(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+        synchronized (lock) {
+            PendingParticipant holder = obtain(conference, participant);
+            if (null != holder) holder.putStream(stream, STREAM_UPDATED);
+        }
+    }
+
+    public void onStreamRemoved(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream) {
+        synchronized (lock) {
+            PendingParticipant holder = obtain(conference, participant);
+            if (null != holder) holder.putStream(stream, STREAM_REMOVED);
+        }
+    }
+
+    /**
+     * Apply right now every pending events
+     */
+    public void flush() {
+        LinkedHashMap<String, PendingParticipant> events;
+        synchronized (lock) {
+            cancel();
+            if (pending.isEmpty()) return;
+
+            events = pending;
+            pending = dispatching;
+            dispatching = events;
+        }
+
+        //the listener is called outside of the lock, the events received meanwhile go to the other map
+        for (PendingParticipant holder : events.values()) {
+            holder.dispatch(listener);
+        }
+
+        synchronized (lock) {
+            for (PendingParticipant holder : events.values()) {
+                holder.clear();
+                recycled.add(holder);
+            }
+            events.clear();
+        }
+
+        listener.onUpdatesFlushed();
+    }
+
+    /**
+     * Drop every pending events and the ones received later for this conference, typically when it has been left
+     *
+     * @param conferenceId the id of the conference left, null to only drop the pending events
+     */
+    public void clear(@Nullable String conferenceId) {
+        synchronized (lock) {
+            cancel();
+            closedConferenceId = conferenceId;
+
+            for (PendingParticipant holder : pending.values()) {
+                holder.clear();
+                recycled.add(holder);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Accept again the events of a conference, typically when it is joined again after being cleared
+     *
+     * @param conferenceId the id of the conference
+     */
+    public void open(@Nullable String conferenceId) {
+        synchronized (lock) {
+            if (null != conferenceId && conferenceId.equals(closedConferenceId)) closedConferenceId = null;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        long maxLatency = getMaxLatency();
+
+        synchronized (lock) {
+            scheduled = false;
+
+            long now = SystemClock.uptimeMillis();
+            if (receivedSinceLastFrame && now - firstPendingEventTime < maxLatency) {
+                //the burst is still in progress, wait for the next frame
+                receivedSinceLastFrame = false;
+                schedule();
+                return;
+            }
+
+            receivedSinceLastFrame = false;
+        }
+        flush();
+    }
+
+    /**
+     * Must be called while holding the lock
+     */
+    @Nullable
+    private PendingParticipant obtain(@NonNull Conference conference, @NonNull Participant participant) {
+        String participantId = participant.getId();
+        if (null == participantId) return null;
+        if (null != closedConferenceId && closedConferenceId.equals(conference.getId())) return null;
+
+        if (pending.isEmpty()) firstPendingEventTime = SystemClock.uptimeMillis();
+        receivedSinceLastFrame = true;
+
+        PendingParticipant holder = pending.get(participantId);
+        if (null == holder) {
+            holder = recycled.isEmpty() ? new PendingParticipant() : recycled.remove(recycled.size() - 1);
+            pending.put(participantId, holder);
+        }
+        holder.conference = conference;
+        holder.participant = participant;
+
+        schedule();
+        return holder;
+    }
+
+    /**
+     * Must be called while holding the lock
+     */
+    private void schedule() {
+        if (scheduled) return;
+        scheduled = true;
+
+        if (Looper.getMainLooper() == Looper.myLooper()) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            //the Choreographer is bound to the thread calling it
+            handler.post(postFrameCallback);
+        }
+    }
+
+    /**
+     * Must be called from the main thread while holding the lock
+     */
+    private void cancel() {
+        if (!scheduled) return;
+        scheduled = false;
+
+        handler.removeCallbacks(postFrameCallback);
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    private long getMaxLatency() {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        ConferenceToolkitController controller = null != toolkit ? toolkit.getConferenceToolkit() : null;
+        return null != controller ? controller.Configuration.Updates.maxLatency : 0;
+    }
+
+    private static class PendingParticipant {
+        private Conference conference;
+        private Participant participant;
+        private boolean added;
+        private boolean updated;
+
+        @NonNull
+        private LinkedHashMap<MediaStream, Integer> streams = new LinkedHashMap<>();
+
+        private void putStream(@NonNull MediaStream stream, int type) {
+            Integer previous = streams.get(stream);
+            //a stream added then updated is still a new stream for the views
+            if (null != previous && STREAM_ADDED == previous && STREAM_UPDATED == type) {
+                type = STREAM_ADDED;
+            }
+            streams.put(stream, type);
+        }
+
+        private void dispatch(@NonNull Listener listener) {
+            if (added) {
+                listener.onParticipantAdded(conference, participant);
+            } else if (updated) {
+                listener.onParticipantUpdated(conference, participant);
+            }
+
+            for (Map.Entry<MediaStream, Integer> entry : streams.entrySet()) {
+                MediaStream stream = entry.getKey();
+                switch (entry.getValue()) {
+                    case STREAM_ADDED:
+                        listener.onStreamAdded(conference, participant, stream);
+                        break;
+                    case STREAM_UPDATED:
+                        listener.onStreamUpdated(conference, participant, stream);
+                        break;
+                    case STREAM_REMOVED:
+                    default:
+                        listener.onStreamRemoved(conference, participant, stream);
+                }
+            }
+        }
+
+        private void clear() {
+            conference = null;
+            participant = null;
+            added = false;
+            updated = false;
+            streams.clear();
+        }
+    }
+
+    /**
+     * Receive the coalesced events
+     */
+    public interface Listener {
+        void onParticipantAdded(@NonNull Conference conference, @NonNull Participant participant);
+
+        void onParticipantUpdated(@NonNull Conference conference, @NonNull Participant participant);
+
+        void onStreamAdded(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream);
+
+        void onStreamUpdated(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream);
+
+        void onStreamRemoved(@NonNull Conference conference, @NonNull Participant participant, @NonNull MediaStream stream);
+
+        /**
+         * Called once every coalesced events of a frame have been dispatched
+         */
+        void onUpdatesFlushed();
+    }
+}
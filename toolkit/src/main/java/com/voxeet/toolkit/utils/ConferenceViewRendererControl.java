@@ -13,8 +13,8 @@ import com.voxeet.promise.solve.PromiseExec;
 import com.voxeet.promise.solve.Solver;
 import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.media.camera.CameraContext;
-import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.views.VideoView;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.implementation.VoxeetConferenceView;
 
 import java.lang.ref.WeakReference;
@@ -65,6 +65,17 @@ public class ConferenceViewRendererControl {
         return parent.get();
     }
 
+    /**
+     * Get the state of the conference displayed by the parent
+     *
+     * @return the snapshot, EMPTY once the parent is gone
+     */
+    @NonNull
+    private ConferenceSnapshot getSnapshot() {
+        VoxeetConferenceView parent = getParent();
+        return null != parent ? parent.getSnapshot() : ConferenceSnapshot.EMPTY;
+    }
+
     @NonNull
     private VideoView getSelfVideoView() {
         return selfVideoView.get();
@@ -75,11 +86,16 @@ public class ConferenceViewRendererControl {
         return otherVideoView.get();
     }
 
+    @NonNull
+    private VideoAttachTracker attachTracker() {
+        return VoxeetToolkit.getInstance().getVideoAttachTracker();
+    }
+
     public void attachStreamToSelected(@NonNull String peerId,
                                        @NonNull MediaStream stream) {
         VideoView selectedView = getOtherVideoView();
 
-        String ownUserId = VoxeetSdk.session().getParticipantId();
+        String ownUserId = getSnapshot().getLocalParticipantId();
         if (null == ownUserId) ownUserId = "";
 
         if (ownUserId.equals(peerId)) {
@@ -91,20 +107,18 @@ public class ConferenceViewRendererControl {
                 selectedView.setOnClickListener(null);
                 selectedView.setClickable(false);
                 selectedView.setMirror(false);
-                selectedView.unAttach();
                 selectedView.setVisibility(View.VISIBLE);
-                selectedView.attach(peerId, stream);
+                attachTracker().attach(selectedView, peerId, stream);
             } else {
-                selectedView.unAttach();
+                attachTracker().release(selectedView);
                 selectedView.setVisibility(View.GONE);
             }
         } else {
             selectedView.setOnClickListener(null);
             selectedView.setClickable(false);
             selectedView.setMirror(false);
-            selectedView.unAttach();
             selectedView.setVisibility(View.VISIBLE);
-            selectedView.attach(peerId, stream);
+            attachTracker().attach(selectedView, peerId, stream);
         }
     }
 
@@ -112,14 +126,14 @@ public class ConferenceViewRendererControl {
         VideoView selectedView = getOtherVideoView();
         VideoView selfVideoView = getSelfVideoView();
 
-        String ownUserId = VoxeetSdk.session().getParticipantId();
-        Participant user = VoxeetSdk.conference().findParticipantById(ownUserId);
+        ConferenceSnapshot snapshot = getSnapshot();
+        String ownUserId = snapshot.getLocalParticipantId();
 
-        selectedView.unAttach();
+        attachTracker().release(selectedView);
 
-        MediaStream stream = null != user ? user.streamsHandler().getFirst(MediaStreamType.Camera) : null;
+        MediaStream stream = snapshot.getStream(ownUserId, MediaStreamType.Camera);
 
-        if (!ToolkitUtils.hasParticipants() && null != stream && stream.videoTracks().size() > 0) {
+        if (!snapshot.hasParticipants() && null != stream && stream.videoTracks().size() > 0) {
             attachStreamToSelf(stream);
         } else {
             selectedView.setVisibility(View.GONE);
@@ -134,27 +148,28 @@ public class ConferenceViewRendererControl {
         CameraContext provider = VoxeetSdk.mediaDevice().getCameraContext();
 
         if (null != stream && stream.videoTracks().size() > 0) {
-            String ownUserId = VoxeetSdk.session().getParticipantId();
-            if (!ToolkitUtils.hasParticipants()) {
-                selfView.unAttach();
+            ConferenceSnapshot snapshot = getSnapshot();
+            String ownUserId = snapshot.getLocalParticipantId();
+            if (!snapshot.hasParticipants()) {
+                attachTracker().release(selfView);
                 selfView.setVisibility(View.GONE);
 
                 selectedView.setVideoFill();
                 selectedView.setMirror(provider.isDefaultFrontFacing());
                 selectedView.setVisibility(View.VISIBLE);
-                selectedView.attach(ownUserId, stream);
+                attachTracker().attach(selectedView, ownUserId, stream);
                 setClickForSelectedIfNecessary();
                 getParent().hideSpeakerView();
             } else {
-                if (selectedView.isAttached() && ownUserId.equals(selectedView.getPeerId())) {
+                if (selectedView.isAttached() && null != ownUserId && ownUserId.equals(selectedView.getPeerId())) {
                     selectedView.setOnClickListener(null);
                     selectedView.setClickable(false);
-                    selectedView.unAttach();
+                    attachTracker().release(selectedView);
                     selectedView.setVisibility(View.GONE);
                     getParent().showSpeakerView();
                 }
                 selfView.setMirror(provider.isDefaultFrontFacing());
-                selfView.attach(VoxeetSdk.session().getParticipantId(), stream);
+                attachTracker().attach(selfView, ownUserId, stream);
                 selfView.setVisibility(View.VISIBLE);
             }
         }
@@ -162,7 +177,7 @@ public class ConferenceViewRendererControl {
 
     private void setClickForSelectedIfNecessary() {
         VideoView selectedView = getOtherVideoView();
-        String ownUserId = VoxeetSdk.session().getParticipantId();
+        String ownUserId = getSnapshot().getLocalParticipantId();
         if (null == ownUserId) ownUserId = "";
 
         if (clickEnabled && ownUserId.equals(selectedView.getPeerId())) {
@@ -178,22 +193,22 @@ public class ConferenceViewRendererControl {
         VideoView selfView = getSelfVideoView();
 
         if (selfView.isAttached()) {
-            selfView.unAttach();
+            attachTracker().release(selfView);
             selfView.setVisibility(View.GONE);
         }
 
-        String ownUserId = VoxeetSdk.session().getParticipantId();
-        if (selectedView.isAttached() && ownUserId.equals(selectedView.getPeerId())) {
+        String ownUserId = getSnapshot().getLocalParticipantId();
+        if (selectedView.isAttached() && null != ownUserId && ownUserId.equals(selectedView.getPeerId())) {
             selectedView.setOnClickListener(null);
             selectedView.setClickable(false);
-            selectedView.unAttach();
+            attachTracker().release(selectedView);
             selectedView.setVisibility(View.GONE);
             getParent().showSpeakerView();
         }
     }
 
     public void switchCamera() {
-        String ownUserId = VoxeetSdk.session().getParticipantId();
+        String ownUserId = getSnapshot().getLocalParticipantId();
         if (null == ownUserId) ownUserId = "";
 
         VideoView self = selfVideoView.get();
@@ -242,7 +257,7 @@ public class ConferenceViewRendererControl {
     }
 
     public void updateMirror(boolean isFrontCamera) {
-        String ownUserId = VoxeetSdk.session().getParticipantId();
+        String ownUserId = getSnapshot().getLocalParticipantId();
         VideoView selectedView = getOtherVideoView();
         VideoView selfView = getSelfVideoView();
 
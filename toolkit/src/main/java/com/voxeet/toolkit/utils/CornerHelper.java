@@ -2,89 +2,123 @@ package com.voxeet.toolkit.utils;
 
 import android.content.Context;
 import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
-import android.view.Display;
+import android.support.annotation.NonNull;
+import android.view.DisplayCutout;
+import android.view.View;
+import android.view.WindowInsets;
 import android.view.WindowManager;
 
 import com.voxeet.sdk.utils.ScreenHelper;
 import com.voxeet.toolkit.R;
 import com.voxeet.toolkit.implementation.VoxeetView;
 
+/**
+ * Compute the corners the overlay can be sent to
+ * <p>
+ * The area available on screen - below the status bar and out of the notch - is cached and only computed
+ * again after invalidateBounds, typically on configuration change. Looking for a corner does not allocate
+ * <p>
+ * Must be used from the main thread
+ */
 public class CornerHelper {
 
     private static final Handler mHandler = new Handler(Looper.getMainLooper());
     private static int mCornerMargin;
 
-    private CornerHelper() {
+    private static final Rect mBounds = new Rect();
+    private static boolean mBoundsValid;
 
-    }
+    private static final Point mPosition = new Point();
 
-    private static Point getCenterPosition(VoxeetView view) {
-        Point point = new Point();
-        point.x = (int) (view.getX() + view.getWidth() / 2);
-        point.y = (int) (view.getY() + view.getHeight() / 2);
+    private CornerHelper() {
 
-        return point;
     }
 
-    private static Corner getClosestCorner(VoxeetView view, WindowManager windowManager, Context context) {
-        Point center = getCenterPosition(view);
-        Display display = windowManager.getDefaultDisplay();
-        int statusHeight = ScreenHelper.getStatusBarHeight(context);
-
-        int top = statusHeight;
-        int left = 0;
-        int bottom = display.getHeight();
-        int right = display.getWidth();
-
-        mCornerMargin = (int) view.getContext().getResources().getDimension(R.dimen.voxeet_overlay_margin);
-        if (mCornerMargin < 0) mCornerMargin = 0;
-
-        Point topLeft = new Point(left, top);
-        Point topRight = new Point(right, top);
-        Point bottomLeft = new Point(left, bottom);
-        Point bottomRight = new Point(right, bottom);
-
-        Corner doubleTopLeft = new Corner(Corner.Type.TopLeft, topLeft);
-        Corner doubleTopRight = new Corner(Corner.Type.TopRight, topRight);
-        Corner doubleBottomLeft = new Corner(Corner.Type.BottomLeft, bottomLeft);
-        Corner doubleBottomRight = new Corner(Corner.Type.BottomRight, bottomRight);
-
-        Corner max = doubleTopLeft;
-
-        if (doubleTopRight.isCloser(max, center)) max = doubleTopRight;
-        if (doubleBottomLeft.isCloser(max, center)) max = doubleBottomLeft;
-        if (doubleBottomRight.isCloser(max, center)) max = doubleBottomRight;
+    /**
+     * Compute the available area again on its next use
+     */
+    public static void invalidateBounds() {
+        mBoundsValid = false;
+    }
 
-        return max;
+    /**
+     * Get the area the overlay can be displayed in
+     *
+     * @param view          the overlay
+     * @param windowManager the window manager
+     * @param context       the context
+     * @return the cached area, must not be modified
+     */
+    @NonNull
+    public static Rect getBounds(@NonNull View view, @NonNull WindowManager windowManager, @NonNull Context context) {
+        if (!mBoundsValid) computeBounds(view, windowManager, context);
+        return mBounds;
     }
 
-    private static Point getFinalPositionForCorner(VoxeetView view, WindowManager windowManager, Context context, Corner corner) {
-        Display display = windowManager.getDefaultDisplay();
-        int statusHeight = ScreenHelper.getStatusBarHeight(context);
-
-        switch (corner.getType()) {
-            case TopRight:
-                return new Point(display.getWidth() - view.getWidth() - mCornerMargin, statusHeight + mCornerMargin);
-            case BottomLeft:
-                return new Point(mCornerMargin, display.getHeight() - view.getHeight() - mCornerMargin);
-            case BottomRight:
-                return new Point(display.getWidth() - view.getWidth() - mCornerMargin, display.getHeight() - view.getHeight() - mCornerMargin);
-            case TopLeft:
-            default:
-                return new Point(mCornerMargin, statusHeight + mCornerMargin);
-        }
+    /**
+     * Get the position of the view in the corner closest to a point
+     *
+     * @param view          the overlay
+     * @param windowManager the window manager
+     * @param context       the context
+     * @param centerX       the horizontal position of the center of the view
+     * @param centerY       the vertical position of the center of the view
+     * @return the position of the top left of the view, reused by the next call
+     */
+    @NonNull
+    public static Point getCornerPosition(@NonNull View view, @NonNull WindowManager windowManager,
+                                          @NonNull Context context, float centerX, float centerY) {
+        Rect bounds = getBounds(view, windowManager, context);
+
+        //the closest corner of a rectangle only depends on the half the point is in
+        boolean left = centerX < bounds.centerX();
+        boolean top = centerY < bounds.centerY();
+
+        mPosition.x = left ? bounds.left + mCornerMargin : bounds.right - view.getWidth() - mCornerMargin;
+        mPosition.y = top ? bounds.top + mCornerMargin : bounds.bottom - view.getHeight() - mCornerMargin;
+        return mPosition;
     }
 
     public static void sendToCorner(final VoxeetView view, final WindowManager windowManager, final Context context) {
         mHandler.post(new Runnable() {
             @Override
             public void run() {
-                Corner corner = CornerHelper.getClosestCorner(view, windowManager, context);
-                Point closest_corner = CornerHelper.getFinalPositionForCorner(view, windowManager, context, corner);
+                Point closest_corner = getCornerPosition(view, windowManager, context,
+                        view.getX() + view.getWidth() / 2, view.getY() + view.getHeight() / 2);
                 view.animate().x(closest_corner.x).y(closest_corner.y).setDuration(200).start();
             }
         });
     }
+
+    private static void computeBounds(@NonNull View view, @NonNull WindowManager windowManager, @NonNull Context context) {
+        Point size = new Point();
+        windowManager.getDefaultDisplay().getSize(size);
+
+        int left = 0;
+        int top = ScreenHelper.getStatusBarHeight(context);
+        int right = size.x;
+        int bottom = size.y;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            WindowInsets insets = view.getRootWindowInsets();
+            DisplayCutout cutout = null != insets ? insets.getDisplayCutout() : null;
+            if (null != cutout) {
+                left = Math.max(left, cutout.getSafeInsetLeft());
+                top = Math.max(top, cutout.getSafeInsetTop());
+                right -= cutout.getSafeInsetRight();
+                bottom -= cutout.getSafeInsetBottom();
+            }
+        }
+
+        mCornerMargin = (int) context.getResources().getDimension(R.dimen.voxeet_overlay_margin);
+        if (mCornerMargin < 0) mCornerMargin = 0;
+
+        mBounds.set(left, top, right, bottom);
+        //the insets are not known before the view is attached, compute them again later
+        mBoundsValid = Build.VERSION.SDK_INT < Build.VERSION_CODES.P || null != view.getRootWindowInsets();
+    }
 }
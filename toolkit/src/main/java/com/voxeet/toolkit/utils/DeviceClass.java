@@ -0,0 +1,72 @@
+package com.voxeet.toolkit.utils;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.ActivityManagerCompat;
+
+/**
+ * Rough classification of the device used to cap the number of videos rendered at the same time
+ * <p>
+ * The class is computed once from the number of cores, the total memory and the smallest width of the screen
+ */
+public enum DeviceClass {
+    LOW(4, 360),
+    MID(9, 540),
+    HIGH(16, 720);
+
+    private final static long GIGABYTE = 1024L * 1024L * 1024L;
+
+    @Nullable
+    private static DeviceClass sInstance;
+
+    /**
+     * Maximum number of videos which can be rendered at the same time
+     */
+    public final int maxVideoTiles;
+
+    /**
+     * Maximum size in pixels of the side of the videos requested for the tiles
+     */
+    public final int maxRendererSize;
+
+    DeviceClass(int maxVideoTiles, int maxRendererSize) {
+        this.maxVideoTiles = maxVideoTiles;
+        this.maxRendererSize = maxRendererSize;
+    }
+
+    /**
+     * Get the class of the current device
+     *
+     * @param context any context, the application context is used
+     * @return the class, computed on the first call only
+     */
+    @NonNull
+    public static DeviceClass get(@NonNull Context context) {
+        if (null == sInstance) {
+            sInstance = compute(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @NonNull
+    private static DeviceClass compute(@NonNull Context context) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int smallestWidth = context.getResources().getConfiguration().smallestScreenWidthDp;
+
+        long totalMemory = 0;
+        boolean lowRam = false;
+        ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (null != manager) {
+            ActivityManager.MemoryInfo info = new ActivityManager.MemoryInfo();
+            manager.getMemoryInfo(info);
+            totalMemory = info.totalMem;
+            lowRam = ActivityManagerCompat.isLowRamDevice(manager);
+        }
+
+        if (lowRam || cores <= 2 || totalMemory < 2 * GIGABYTE) return LOW;
+        if (cores >= 8 && totalMemory >= 4 * GIGABYTE && smallestWidth >= 360) return HIGH;
+        return MID;
+    }
+}
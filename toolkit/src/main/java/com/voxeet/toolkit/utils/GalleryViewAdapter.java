@@ -0,0 +1,330 @@
+package com.voxeet.toolkit.utils;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.recyclerview.extensions.AsyncListDiffer;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.android.media.MediaStreamType;
+import com.voxeet.sdk.VoxeetSdk;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.services.SessionService;
+import com.voxeet.sdk.views.VideoView;
+import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter displaying one tile per participant in the gallery
+ * <p>
+ * Only the first participants owning a video get a renderer, up to the given maximum, the others are
+ * displayed with their avatar. Renderers are attached only while their tile is visible enough
+ */
+public class GalleryViewAdapter extends RecyclerView.Adapter<GalleryViewAdapter.ViewHolder> implements ViewportTracker.Listener {
+
+    private final String TAG = GalleryViewAdapter.class.getSimpleName();
+
+    private AsyncListDiffer<ParticipantViewItem> differ;
+
+    private ParticipantStableIds stableIds;
+
+    private int avatarSize;
+
+    private int maxVideoTiles;
+
+    private int maxRendererSize;
+
+    private int tileWidth = ViewGroup.LayoutParams.MATCH_PARENT;
+
+    private int tileHeight = ViewGroup.LayoutParams.WRAP_CONTENT;
+
+    private ViewportTracker viewportTracker;
+
+    /**
+     * Instantiates a new Gallery view adapter.
+     *
+     * @param context the context
+     */
+    public GalleryViewAdapter(@NonNull Context context) {
+        DeviceClass deviceClass = DeviceClass.get(context);
+        this.maxVideoTiles = deviceClass.maxVideoTiles;
+        this.maxRendererSize = deviceClass.maxRendererSize;
+
+        this.stableIds = new ParticipantStableIds();
+        this.differ = new AsyncListDiffer<>(this, ParticipantViewItem.DIFF);
+        setHasStableIds(true);
+
+        this.viewportTracker = new ViewportTracker(this);
+
+        this.avatarSize = context.getResources().getDimensionPixelSize(R.dimen.conference_view_avatar_size);
+    }
+
+    /**
+     * Set the maximum number of renderers used at the same time
+     *
+     * @param maxVideoTiles the number of videos, applied on the next update
+     */
+    public void setMaxVideoTiles(int maxVideoTiles) {
+        this.maxVideoTiles = Math.max(0, maxVideoTiles);
+    }
+
+    /**
+     * Set the size of every tile, the quality requested for the videos is capped by the device class
+     *
+     * @param tileWidth  the width in pixels
+     * @param tileHeight the height in pixels
+     */
+    public void setTileSize(int tileWidth, int tileHeight) {
+        if (this.tileWidth == tileWidth && this.tileHeight == tileHeight) return;
+
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Capture the participants to display and dispatch them to the differ
+     *
+     * @param participants the participants of the conference, only the ones on air are displayed
+     * @return the number of tiles
+     */
+    public int setParticipants(@NonNull List<Participant> participants) {
+        ParticipantIndex index = VoxeetToolkit.getInstance().getParticipantIndex();
+        List<ParticipantViewItem> items = new ArrayList<>(participants.size());
+        int videos = 0;
+
+        for (int i = 0, size = participants.size(); i < size; i++) {
+            Participant participant = participants.get(i);
+            if (null == participant.getId() || !participant.isLocallyActive()) continue;
+
+            MediaStream stream = index.getStream(participant.getId(), MediaStreamType.Camera);
+            if (null != stream && stream.videoTracks().size() > 0 && videos < maxVideoTiles) {
+                videos++;
+            } else {
+                stream = null;
+            }
+            items.add(new ParticipantViewItem(participant, stream, false));
+        }
+
+        differ.submitList(items);
+        return items.size();
+    }
+
+    /**
+     * Remove every tile, the renderers are detached when the holders are recycled
+     */
+    public void clear() {
+        differ.submitList(null);
+        stableIds.clear();
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.view_gallery_tile, parent, false);
+
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int mask = ParticipantPayload.merge(payloads);
+        if (0 == mask) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        ParticipantViewItem item = getItem(position);
+
+        if (ParticipantPayload.NAME.in(mask)) bindName(holder, item);
+        if (ParticipantPayload.AVATAR.in(mask)) loadAvatar(item.getAvatarUrl(), holder.avatar);
+        if (ParticipantPayload.VIDEO_STREAM.in(mask)) bindVideoStream(holder, item);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        ParticipantViewItem item = getItem(position);
+
+        bindSize(holder);
+
+        bindName(holder, item);
+
+        loadAvatar(item.getAvatarUrl(), holder.avatar);
+
+        bindVideoStream(holder, item);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+
+        viewportTracker.attach(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        viewportTracker.detach();
+
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onViewportEntered(@NonNull RecyclerView.ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (RecyclerView.NO_POSITION != position && position < getItemCount()) {
+            bindVideoStream((ViewHolder) holder, getItem(position));
+        }
+    }
+
+    @Override
+    public void onViewportLeft(@NonNull RecyclerView.ViewHolder holder) {
+        //the tile is scrolled out of the screen, release its renderer
+        detachStream((ViewHolder) holder);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        detachStream(holder);
+
+        super.onViewRecycled(holder);
+    }
+
+    private void bindSize(@NonNull ViewHolder holder) {
+        ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+        if (null != params && params.height != tileHeight) {
+            params.height = tileHeight;
+            holder.itemView.setLayoutParams(params);
+        }
+    }
+
+    private void bindName(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        holder.name.setText(null != item.getName() ? item.getName() : "");
+    }
+
+    private void bindVideoStream(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        MediaStream stream = item.getStream();
+
+        //tiles are bound before being displayed, they will be attached once visible enough
+        if (null == stream || !viewportTracker.isVisible(holder)) {
+            detachStream(holder);
+            return;
+        }
+
+        //the renderer is already displaying this stream, prevent the unAttach/attach churn
+        VideoAttachTracker tracker = VoxeetToolkit.getInstance().getVideoAttachTracker();
+        holder.videoView.setMirror(isLocal(item.getId()));
+        if (!tracker.attach(holder.videoView, item.getId(), stream)) return;
+
+        if (null != holder.attachedParticipantId && !item.getId().equals(holder.attachedParticipantId)) {
+            onVideoHidden(holder.attachedParticipantId);
+        }
+
+        Log.d(TAG, "bindVideoStream: attached stream for user " + item.getId());
+        holder.attachedParticipantId = item.getId();
+        holder.videoView.setVisibility(View.VISIBLE);
+        holder.avatar.setVisibility(View.GONE);
+
+        StreamQualityHook hook = VoxeetToolkit.getInstance().getStreamQualityHook();
+        if (null != hook) {
+            int width = tileWidth > 0 ? tileWidth : holder.itemView.getWidth();
+            int height = tileHeight > 0 ? tileHeight : holder.itemView.getHeight();
+
+            //the video fills the tile, only the quality requested is capped
+            int side = Math.max(width, height);
+            if (side > maxRendererSize) {
+                width = width * maxRendererSize / side;
+                height = height * maxRendererSize / side;
+            }
+            hook.onVideoDisplayed(item.getId(), width, height);
+        }
+    }
+
+    private void detachStream(@NonNull ViewHolder holder) {
+        if (null != holder.attachedParticipantId) {
+            onVideoHidden(holder.attachedParticipantId);
+            holder.attachedParticipantId = null;
+        }
+        if (!holder.videoView.isAttached()) return;
+
+        VoxeetToolkit.getInstance().getVideoAttachTracker().release(holder.videoView);
+        holder.videoView.setVisibility(View.GONE);
+        holder.avatar.setVisibility(View.VISIBLE);
+    }
+
+    private void onVideoHidden(@NonNull String participantId) {
+        StreamQualityHook hook = VoxeetToolkit.getInstance().getStreamQualityHook();
+        if (null != hook) hook.onVideoHidden(participantId);
+    }
+
+    private boolean isLocal(@NonNull String participantId) {
+        SessionService session = VoxeetSdk.session();
+        return null != session && participantId.equals(session.getParticipantId());
+    }
+
+    private ParticipantViewItem getItem(int position) {
+        return differ.getCurrentList().get(position);
+    }
+
+    /**
+     * Displays user's avatar in the specified imageView.
+     *
+     * @param url       the avatar url of the user, null to use the default avatar
+     * @param imageView the landing image view
+     */
+    private void loadAvatar(@Nullable String url, RoundedImageView imageView) {
+        try {
+            VoxeetToolkit.getInstance().getAvatarLoader().load(url, avatarSize, imageView);
+        } catch (Exception e) {
+            Log.e(TAG, "error " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.get(getItem(position).getId());
+    }
+
+    /**
+     * The type View holder.
+     */
+    class ViewHolder extends RecyclerView.ViewHolder {
+        private VideoView videoView;
+
+        private TextView name;
+
+        private RoundedImageView avatar;
+
+        @Nullable
+        private String attachedParticipantId;
+
+        /**
+         * Instantiates a new View holder.
+         *
+         * @param view the view
+         */
+        ViewHolder(@NonNull View view) {
+            super(view);
+
+            videoView = (VideoView) view.findViewById(R.id.participant_video_view);
+
+            name = (TextView) view.findViewById(R.id.name);
+
+            avatar = (RoundedImageView) view.findViewById(R.id.avatar);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.android.media.MediaStreamType;
+import com.voxeet.sdk.VoxeetSdk;
+import com.voxeet.sdk.events.sdk.ConferenceStatusUpdatedEvent;
+import com.voxeet.sdk.events.success.ConferenceUpdated;
+import com.voxeet.sdk.json.ConferenceDestroyedPush;
+import com.voxeet.sdk.json.ConferenceEnded;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.services.ConferenceService;
+import com.voxeet.sdk.services.SessionService;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Toolkit side index of the participants of the current conference and of their streams
+ * <p>
+ * It is updated by the conference controller from the coalesced participant and stream events, in the
+ * same flush as the ConferenceSnapshot, so that every view reads the same state while handling them. It is
+ * invalidated by the conference events, with a higher priority than the controllers. Lookups by id and
+ * by stream type are made in O(1) instead of scanning the participants of the conference each time. The
+ * streams owning video tracks are also kept in the order their video started, to find the first video of
+ * a given type in O(1)
+ * <p>
+ * Must be used from the main thread
+ */
+public class ParticipantIndex implements StreamRouter.StreamSource<MediaStream> {
+
+    /**
+     * Priority used to receive the events before the controllers and the views
+     */
+    private final static int PRIORITY = 10;
+
+    /**
+     * Position of each participant in the ordered list, positions are never removed until the next rebuild
+     */
+    @NonNull
+    private HashMap<String, Integer> positions;
+
+    @NonNull
+    private ArrayList<Participant> ordered;
+
+    @NonNull
+    private List<Participant> unmodifiableOrdered;
+
+    @NonNull
+    private HashMap<String, MediaStream> cameras;
+
+    @NonNull
+    private HashMap<String, MediaStream> screenShares;
+
+    @NonNull
+    private LinkedHashMap<String, MediaStream> cameraVideos;
+
+    @NonNull
+    private LinkedHashMap<String, MediaStream> screenShareVideos;
+
+    /**
+     * Set when the index must be rebuilt from the SDK before its next use
+     */
+    private boolean invalidated;
+
+    public ParticipantIndex() {
+        positions = new HashMap<>();
+        ordered = new ArrayList<>();
+        unmodifiableOrdered = Collections.unmodifiableList(ordered);
+        cameras = new HashMap<>();
+        screenShares = new HashMap<>();
+        cameraVideos = new LinkedHashMap<>();
+        screenShareVideos = new LinkedHashMap<>();
+        invalidated = true;
+    }
+
+    /**
+     * Get a participant of the current conference
+     * <p>
+     * A participant not flushed by the controller yet is not known, the readers never update the index
+     *
+     * @param participantId the id of the participant to find
+     * @return the participant or null if it is not in the index
+     */
+    @Nullable
+    public Participant get(@Nullable String participantId) {
+        if (null == participantId) return null;
+        rebuildIfInvalidated();
+
+        Integer position = positions.get(participantId);
+        return null != position ? ordered.get(position) : null;
+    }
+
+    /**
+     * Get the participant of the current conference matching the logged in user
+     *
+     * @return the local participant or null
+     */
+    @Nullable
+    public Participant getLocal() {
+        SessionService session = VoxeetSdk.session();
+        return null != session ? get(session.getParticipantId()) : null;
+    }
+
+    /**
+     * Get the first stream of a given type for a participant
+     *
+     * @param participantId the id of the participant
+     * @param type          the type of stream, only Camera and ScreenShare are indexed
+     * @return the stream or null
+     */
+    @Nullable
+    @Override
+    public MediaStream getStream(@Nullable String participantId, @NonNull MediaStreamType type) {
+        if (null == get(participantId)) return null;
+
+        switch (type) {
+            case Camera:
+                return cameras.get(participantId);
+            case ScreenShare:
+                return screenShares.get(participantId);
+            default:
+                return get(participantId).streamsHandler().getFirst(type);
+        }
+    }
+
+    @Override
+    public boolean hasVideo(@NonNull MediaStream stream) {
+        return ToolkitUtils.hasVideo(stream);
+    }
+
+    /**
+     * Get the participant whose video of a given type started first
+     *
+     * @param type       the type of stream, only Camera and ScreenShare are indexed
+     * @param excludedId a participant to skip, usually the local one
+     * @return the id of the participant or null if no such video is available
+     */
+    @Nullable
+    @Override
+    public String getFirstVideo(@NonNull MediaStreamType type, @Nullable String excludedId) {
+        rebuildIfInvalidated();
+
+        LinkedHashMap<String, MediaStream> videos;
+        switch (type) {
+            case Camera:
+                videos = cameraVideos;
+                break;
+            case ScreenShare:
+                videos = screenShareVideos;
+                break;
+            default:
+                return null;
+        }
+
+        //at most one entry is skipped
+        for (String participantId : videos.keySet()) {
+            if (!participantId.equals(excludedId)) return participantId;
+        }
+        return null;
+    }
+
+    /**
+     * Get the participants in the order they joined the conference
+     *
+     * @return an unmodifiable list, kept up to date by the index
+     */
+    @NonNull
+    public List<Participant> getParticipants() {
+        rebuildIfInvalidated();
+        return unmodifiableOrdered;
+    }
+
+    /**
+     * Force the index to be rebuilt from the SDK on its next use
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN, priority = PRIORITY)
+    public void onEvent(@NonNull ConferenceStatusUpdatedEvent event) {
+        switch (event.state) {
+            case JOINED:
+            case LEFT:
+            case ERROR:
+                invalidate();
+                break;
+            default:
+        }
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN, priority = PRIORITY)
+    public void onEvent(@NonNull ConferenceUpdated event) {
+        invalidate();
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN, priority = PRIORITY)
+    public void onEvent(@NonNull ConferenceDestroyedPush event) {
+        invalidate();
+    }
+
+    @Subscribe(threadMode = ThreadMode.MAIN, priority = PRIORITY)
+    public void onEvent(@NonNull ConferenceEnded event) {
+        invalidate();
+    }
+
+    /**
+     * Update a participant and its streams
+     * <p>
+     * Called by the conference controller for each participant of a flush, before the views receive it
+     *
+     * @param participant the participant added or updated
+     */
+    public void onParticipantChanged(@Nullable Participant participant) {
+        if (null == participant || null == participant.getId()) return;
+        if (invalidated) return; //will be fully rebuilt on next use
+
+        put(participant);
+    }
+
+    private void put(@NonNull Participant participant) {
+        String participantId = participant.getId();
+        if (null == participantId) return;
+
+        Integer position = positions.get(participantId);
+        if (null == position) {
+            positions.put(participantId, ordered.size());
+            ordered.add(participant);
+        } else {
+            ordered.set(position, participant);
+        }
+
+        indexStreams(participantId, participant);
+    }
+
+    private void indexStreams(@NonNull String participantId, @NonNull Participant participant) {
+        MediaStream camera = participant.streamsHandler().getFirst(MediaStreamType.Camera);
+        MediaStream screenShare = participant.streamsHandler().getFirst(MediaStreamType.ScreenShare);
+
+        if (null != camera) cameras.put(participantId, camera);
+        else cameras.remove(participantId);
+
+        if (null != screenShare) screenShares.put(participantId, screenShare);
+        else screenShares.remove(participantId);
+
+        indexVideo(cameraVideos, participantId, camera);
+        indexVideo(screenShareVideos, participantId, screenShare);
+    }
+
+    private void indexVideo(@NonNull LinkedHashMap<String, MediaStream> videos,
+                            @NonNull String participantId,
+                            @Nullable MediaStream stream) {
+        if (null != stream && stream.videoTracks().size() > 0) {
+            //an already known participant keeps its place
+            videos.put(participantId, stream);
+        } else {
+            videos.remove(participantId);
+        }
+    }
+
+    private void rebuildIfInvalidated() {
+        if (!invalidated) return;
+        invalidated = false;
+
+        positions.clear();
+        ordered.clear();
+        cameras.clear();
+        screenShares.clear();
+        cameraVideos.clear();
+        screenShareVideos.clear();
+
+        ConferenceService service = VoxeetSdk.conference();
+        if (null == service) return;
+
+        List<Participant> list = service.getParticipants();
+        for (int i = 0, size = list.size(); i < size; i++) {
+            Participant participant = list.get(i);
+            if (null != participant) put(participant);
+        }
+    }
+}
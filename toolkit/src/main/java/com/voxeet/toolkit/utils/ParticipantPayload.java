@@ -0,0 +1,56 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Describe the parts of a participant cell which changed between two snapshots
+ * <p>
+ * Payloads are dispatched as a single Integer mask to keep them in the boxed cache
+ */
+public enum ParticipantPayload {
+    NAME(1),
+    ACTIVE_STATE(1 << 1),
+    AVATAR(1 << 2),
+    VIDEO_STREAM(1 << 3),
+    SELECTION(1 << 4);
+
+    private final int flag;
+
+    ParticipantPayload(int flag) {
+        this.flag = flag;
+    }
+
+    public int flag() {
+        return flag;
+    }
+
+    /**
+     * Check if the given mask contains this payload
+     *
+     * @param mask the mask to test against
+     * @return true if this payload is set
+     */
+    public boolean in(int mask) {
+        return (mask & flag) != 0;
+    }
+
+    /**
+     * Merge every payload sent by the RecyclerView into a single mask
+     *
+     * @param payloads the payloads given to onBindViewHolder
+     * @return the merged mask, 0 if a full bind is required
+     */
+    public static int merge(@Nullable List<Object> payloads) {
+        if (null == payloads) return 0;
+
+        int mask = 0;
+        for (int i = 0, size = payloads.size(); i < size; i++) {
+            Object payload = payloads.get(i);
+            if (!(payload instanceof Integer)) return 0;
+            mask |= (Integer) payload;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,39 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * Stable ids of the cells of the participant adapters, one per participant id
+ * <p>
+ * The ids are never reused : once cleared, a participant coming back gets a new id
+ */
+class ParticipantStableIds {
+
+    private final HashMap<String, Long> ids = new HashMap<>();
+
+    private long nextId = 0;
+
+    /**
+     * Get the id of a participant, allocated on the first call
+     *
+     * @param participantId the id of the participant
+     * @return the stable id of its cell
+     */
+    long get(@Nullable String participantId) {
+        Long id = ids.get(participantId);
+        if (null == id) {
+            id = nextId++;
+            ids.put(participantId, id);
+        }
+        return id;
+    }
+
+    /**
+     * Forget every participant, to call once the cells are removed
+     */
+    void clear() {
+        ids.clear();
+    }
+}
@@ -4,8 +4,8 @@ import android.content.Context;
 import android.graphics.Typeface;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v7.recyclerview.extensions.AsyncListDiffer;
 import android.support.v7.widget.RecyclerView;
-import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -14,28 +14,57 @@ import android.view.animation.AlphaAnimation;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.squareup.picasso.Picasso;
 import com.voxeet.android.media.MediaStream;
 import com.voxeet.android.media.MediaStreamType;
-import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.models.Participant;
 import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
 import com.voxeet.sdk.views.VideoView;
 import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 import com.voxeet.toolkit.views.internal.rounded.RoundedImageView;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 
-public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantViewAdapter.ViewHolder> {
+public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantViewAdapter.ViewHolder> implements AudioLevelSampler.Listener, ViewportTracker.Listener {
 
     private final String TAG = ParticipantViewAdapter.class.getSimpleName();
 
+    private final static int BUCKET_ON_AIR = 0;
+    private final static int BUCKET_RESERVED = 1;
+    private final static int BUCKET_LEFT = 2;
+    private final static int BUCKET_OTHER = 3;
+    private final static int BUCKET_COUNT = 4;
+
     private boolean namesEnabled = true;
 
-    private List<Participant> users;
+    /**
+     * Ordered list of the users to display, rebuilt in place by sort()
+     */
+    private ArrayList<Participant> users;
+
+    /**
+     * Users managed by this adapter, keyed by their id and kept in their insertion order
+     */
+    private LinkedHashMap<String, Participant> participants;
+
+    private HashSet<String> incomingIds;
+
+    private Participant[] sortBuffer;
+
+    private int[] bucketBuffer;
+
+    private int[] bucketOffsets;
+
+    /**
+     * Compute the differences between two lists of cells in background
+     */
+    private AsyncListDiffer<ParticipantViewItem> differ;
+
+    private ParticipantStableIds stableIds;
 
     private Context context;
 
@@ -49,6 +78,21 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
 
     private int selectedUserColor;
 
+    @Nullable
+    private Integer speakingUserColor;
+
+    @Nullable
+    private RecyclerView recyclerView;
+
+    /**
+     * Renderers are only attached to the cells visible enough
+     */
+    private ViewportTracker viewportTracker;
+
+    private int selectedTextColor;
+
+    private int textColor;
+
     private String mRequestUserIdChanged;
 
     private ParticipantViewAdapter() {
@@ -63,10 +107,24 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
     public ParticipantViewAdapter(Context context) {
         this();
         this.selectedUserColor = context.getResources().getColor(R.color.blue);
+        this.selectedTextColor = context.getResources().getColor(R.color.white);
+        this.textColor = context.getResources().getColor(R.color.grey999);
 
         this.context = context;
 
         this.users = new ArrayList<>();
+        this.participants = new LinkedHashMap<>();
+        this.incomingIds = new HashSet<>();
+        this.sortBuffer = new Participant[0];
+        this.bucketBuffer = new int[0];
+        this.bucketOffsets = new int[BUCKET_COUNT + 1];
+
+        this.stableIds = new ParticipantStableIds();
+
+        this.differ = new AsyncListDiffer<>(this, ParticipantViewItem.DIFF);
+        setHasStableIds(true);
+
+        this.viewportTracker = new ViewportTracker(this);
 
         this.namesEnabled = true;
 
@@ -77,7 +135,22 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         filter();
         sort();
 
-        notifyDataSetChanged();
+        submit();
+    }
+
+    /**
+     * Capture the current state of the users and dispatch it to the differ
+     * <p>
+     * Only the cells which changed will be rebound, with the corresponding payload
+     */
+    private void submit() {
+        List<ParticipantViewItem> items = new ArrayList<>(users.size());
+        for (Participant user : users) {
+            String userId = user.getId();
+            if (null == userId) continue;
+            items.add(new ParticipantViewItem(user, getMediaStream(user), equalsToUser(selectedUserId, user)));
+        }
+        differ.submitList(items);
     }
 
     /**
@@ -86,16 +159,21 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
      * @param users the list of user to populate the adapter
      */
     public void setUsers(List<Participant> users) {
-        for (Participant user : users) {
-            if (!this.users.contains(user))
-                this.users.add(user);
+        incomingIds.clear();
+        for (int i = 0, size = users.size(); i < size; i++) {
+            Participant user = users.get(i);
+            String userId = null != user ? user.getId() : null;
+            if (null == userId) continue;
+
+            incomingIds.add(userId);
+            //put keeps the insertion order of the already known users while refreshing the instance
+            participants.put(userId, user);
         }
 
-        List<Participant> to_remove = new ArrayList<>();
-        for (Participant user : this.users) {
-            if (!users.contains(user)) to_remove.add(user);
+        Iterator<String> iterator = participants.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!incomingIds.contains(iterator.next())) iterator.remove();
         }
-        this.users.removeAll(to_remove);
 
         filter();
         sort();
@@ -117,30 +195,43 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         return null != p && s.equals(p.getStatus());
     }
 
+    private int bucketOf(@NonNull Participant participant) {
+        if (participant.isLocallyActive()) return BUCKET_ON_AIR;
+        if (is(participant, ConferenceParticipantStatus.RESERVED)) return BUCKET_RESERVED;
+        if (is(participant, ConferenceParticipantStatus.LEFT)) return BUCKET_LEFT;
+        return BUCKET_OTHER;
+    }
+
+    /**
+     * Order the users : on air, reserved, left then the others
+     * <p>
+     * Stable counting sort over the id-keyed users, the buffers are reused between calls
+     */
     private void sort() {
-        if (null != users) {
-            ArrayList<Participant> tmp = new ArrayList<>();
-            ArrayList<Participant> air = new ArrayList<>();
-            ArrayList<Participant> inv = new ArrayList<>();
-            ArrayList<Participant> left = new ArrayList<>();
-            ArrayList<Participant> other = new ArrayList<>();
-
-            for (Participant participant : users) {
-                if (participant.isLocallyActive()) {
-                    air.add(participant);
-                } else if (is(participant, ConferenceParticipantStatus.RESERVED)) {
-                    inv.add(participant);
-                } else if (is(participant, ConferenceParticipantStatus.LEFT)) {
-                    left.add(participant);
-                } else {
-                    other.add(participant);
-                }
-            }
-            tmp.addAll(air);
-            tmp.addAll(inv);
-            tmp.addAll(left);
-            tmp.addAll(other);
-            users = tmp;
+        int size = participants.size();
+        if (sortBuffer.length < size) {
+            sortBuffer = new Participant[size];
+            bucketBuffer = new int[size];
+        }
+
+        //single pass over the users : resolve and count each bucket
+        int[] offsets = bucketOffsets;
+        for (int i = 0; i < offsets.length; i++) offsets[i] = 0;
+        int index = 0;
+        for (Participant participant : participants.values()) {
+            int bucket = bucketOf(participant);
+            sortBuffer[index] = participant;
+            bucketBuffer[index++] = bucket;
+            offsets[bucket + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+
+        //then place each user right after the previous one of its bucket
+        users.clear();
+        for (int i = 0; i < size; i++) users.add(null);
+        for (int i = 0; i < size; i++) {
+            users.set(offsets[bucketBuffer[i]]++, sortBuffer[i]);
+            sortBuffer[i] = null;
         }
     }
 
@@ -153,6 +244,67 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         selectedUserColor = color;
     }
 
+    /**
+     * Sets the color of the circle displayed around a speaking conference user.
+     *
+     * @param color the color
+     */
+    public void setSpeakingUserColor(int color) {
+        speakingUserColor = color;
+        //the other cells get the color when they are bound
+        onLevelsUpdated(VoxeetToolkit.getInstance().getAudioLevelSampler());
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+
+        this.recyclerView = recyclerView;
+        viewportTracker.attach(recyclerView);
+        VoxeetToolkit.getInstance().getAudioLevelSampler().register(this);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        VoxeetToolkit.getInstance().getAudioLevelSampler().unregister(this);
+        viewportTracker.detach();
+        this.recyclerView = null;
+
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    /**
+     * Update the speaking indicator of the visible cells only
+     *
+     * @param sampler the sampler holding the levels
+     */
+    @Override
+    public void onLevelsUpdated(@NonNull AudioLevelSampler sampler) {
+        if (null == recyclerView) return;
+
+        for (int i = 0, count = recyclerView.getChildCount(); i < count; i++) {
+            ViewHolder holder = (ViewHolder) recyclerView.getChildViewHolder(recyclerView.getChildAt(i));
+            int position = holder.getAdapterPosition();
+            if (RecyclerView.NO_POSITION == position || position >= getItemCount()) continue;
+
+            bindSpeaking(holder, getItem(position), sampler);
+        }
+    }
+
+    @Override
+    public void onViewportEntered(@NonNull RecyclerView.ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (RecyclerView.NO_POSITION == position || position >= getItemCount()) return;
+
+        ParticipantViewItem item = getItem(position);
+        loadStreamOnto(item.getId(), item.getStream(), (ViewHolder) holder);
+    }
+
+    @Override
+    public void onViewportLeft(@NonNull RecyclerView.ViewHolder holder) {
+        releaseStream((ViewHolder) holder);
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -162,58 +314,159 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
     }
 
     @Override
-    public void onBindViewHolder(@NonNull final ViewHolder holder, final int position) {
-        final Participant user = getItem(position);
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        int mask = ParticipantPayload.merge(payloads);
+        if (0 == mask) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        ParticipantViewItem item = getItem(position);
+
+        if (ParticipantPayload.NAME.in(mask)) bindName(holder, item);
+        if (ParticipantPayload.ACTIVE_STATE.in(mask)) bindActiveState(holder, item);
+        if (ParticipantPayload.AVATAR.in(mask)) loadAvatar(item.getAvatarUrl(), holder.avatar);
+        if (ParticipantPayload.SELECTION.in(mask)) bindSelection(holder, item);
+        if (ParticipantPayload.VIDEO_STREAM.in(mask)) bindVideoStream(holder, item);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        ParticipantViewItem item = getItem(position);
+
+        bindName(holder, item);
+
+        loadAvatar(item.getAvatarUrl(), holder.avatar);
+
+        bindActiveState(holder, item);
+
+        bindSelection(holder, item);
+
+        bindVideoStream(holder, item);
+
+        bindSpeaking(holder, item, VoxeetToolkit.getInstance().getAudioLevelSampler());
+
+        setAnimation(holder.itemView, position);
+    }
 
-        boolean on_air = user.isLocallyActive();
+    /**
+     * Toggle the selection of the participant bound to the given holder
+     *
+     * @param holder the holder which has been clicked
+     */
+    private void onCellClicked(@NonNull ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (RecyclerView.NO_POSITION == position) return;
 
-        if (null != user.getInfo()) {
-            holder.name.setText(user.getInfo().getName());
+        ParticipantViewItem item = getItem(position);
+        Participant user = item.getParticipant();
+
+        if (!item.isOnAir()) {
+            Log.d(TAG, "onClick: click on an invalid user, we can't select him");
+            return;
         }
-        holder.name.setVisibility(namesEnabled ? View.VISIBLE : View.GONE);
 
-        loadViaPicasso(user, holder.avatar);
+        String userId = user.getId();
+        //toggle media screen call next stream
+
+        MediaStream stream = getMediaStream(user);
+
+        loadStreamOnto(userId, stream, holder);
+
+        if (null != userId) {
+            Log.d(TAG, "onClick: selecting the user " + userId);
+            if (null == selectedUserId || !equalsToUser(selectedUserId, user)) {
+                selectedUserId = userId;
+
+                if (listener != null)
+                    listener.onParticipantSelected(user, stream);
+            } else {
+                selectedUserId = null; //deselecting
+
+                if (listener != null)
+                    listener.onParticipantUnselected(user);
+            }
+
+            submit();
+        }
+    }
+
+    /**
+     * Unselect the participant bound to the given holder if it was selected
+     *
+     * @param holder the holder which has been long clicked
+     */
+    private void onCellLongClicked(@NonNull ViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (RecyclerView.NO_POSITION == position) return;
+
+        Participant user = getItem(position).getParticipant();
+
+        if (equalsToUser(selectedUserId, user)) {
+            selectedUserId = null;
+
+            if (listener != null)
+                listener.onParticipantUnselected(user);
+            submit();
+        }
+    }
 
-        if (on_air) {
+    private void bindName(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        if (null != item.getName()) {
+            holder.name.setText(item.getName());
+        }
+        holder.name.setVisibility(namesEnabled ? View.VISIBLE : View.GONE);
+    }
+
+    private void bindActiveState(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        if (item.isOnAir()) {
             holder.itemView.setAlpha(1f);
             holder.avatar.setAlpha(1.0f);
         } else {
             holder.itemView.setAlpha(0.5f);
             holder.avatar.setAlpha(0.4f);
         }
+    }
 
-        if (equalsToUser(selectedUserId, user)) {
+    private void bindSelection(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        if (item.isSelected()) {
             holder.name.setTypeface(Typeface.DEFAULT_BOLD);
-            holder.name.setTextColor(context.getResources().getColor(R.color.white));
+            holder.name.setTextColor(selectedTextColor);
 
             holder.overlay.setVisibility(View.VISIBLE);
             holder.overlay.setBackgroundColor(selectedUserColor);
         } else {
             holder.name.setTypeface(Typeface.DEFAULT);
-            holder.name.setTextColor(context.getResources().getColor(R.color.grey999));
+            holder.name.setTextColor(textColor);
 
             holder.overlay.setVisibility(View.GONE);
         }
+    }
 
-        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
-            @Override
-            public boolean onLongClick(View view) {
+    private void bindSpeaking(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item, @NonNull AudioLevelSampler sampler) {
+        boolean speaking = item.isOnAir() && sampler.getLevel(item.getId()) >= getSpeakingThreshold();
+        boolean colorChanged = speaking && null != speakingUserColor && !speakingUserColor.equals(holder.speakingColor);
+        if (speaking == holder.speaking && !colorChanged) return;
 
-                if (equalsToUser(selectedUserId, user)) {
-                    selectedUserId = null;
+        holder.speaking = speaking;
+        if (colorChanged) {
+            holder.speakingIndicator.setBackgroundColor(speakingUserColor);
+            holder.speakingColor = speakingUserColor;
+        }
+        holder.speakingIndicator.setVisibility(speaking ? View.VISIBLE : View.GONE);
+    }
 
-                    if (listener != null)
-                        listener.onParticipantUnselected(user);
-                    notifyDataSetChanged();
-                }
-                return true;
-            }
-        });
+    private double getSpeakingThreshold() {
+        return VoxeetToolkit.getInstance().getConferenceToolkit().Configuration.ActiveSpeaker.speakingThreshold;
+    }
+
+    private void bindVideoStream(@NonNull ViewHolder holder, @NonNull ParticipantViewItem item) {
+        Participant user = item.getParticipant();
 
         if (null != mRequestUserIdChanged && mRequestUserIdChanged.equals(user.getId())) {
-            MediaStream stream = getMediaStream(mRequestUserIdChanged);
+            MediaStream stream = item.getStream();
 
-            loadStreamOnto(mRequestUserIdChanged, holder);
+            loadStreamOnto(mRequestUserIdChanged, stream, holder);
 
             if (listener != null)
                 listener.onParticipantSelected(user, stream);
@@ -221,67 +474,51 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
             //prevent any modification until next event
             mRequestUserIdChanged = null;
         } else {
-            String userId = user.getId();
-
-            loadStreamOnto(userId, holder);
+            loadStreamOnto(item.getId(), item.getStream(), holder);
         }
-
-        holder.itemView.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (!on_air) {
-                    Log.d(TAG, "onClick: click on an invalid user, we can't select him");
-                    return;
-                }
-
-                String userId = user.getId();
-                //toggle media screen call next stream
-
-                loadStreamOnto(userId, holder);
-
-
-                MediaStream stream = getMediaStream(userId);
-
-                if (null != user.getId()) {
-                    Log.d(TAG, "onClick: selecting the user " + user.getId());
-                    if (null == selectedUserId || !equalsToUser(selectedUserId, user)) {
-                        selectedUserId = user.getId();
-
-                        if (listener != null)
-                            listener.onParticipantSelected(user, stream);
-                    } else {
-                        selectedUserId = null; //deselecting
-
-                        if (listener != null)
-                            listener.onParticipantUnselected(user);
-                    }
-
-                    notifyDataSetChanged();
-                }
-            }
-        });
-
-        setAnimation(holder.itemView, position);
     }
 
     private boolean equalsToUser(String selectedUserId, Participant user) {
         return null != selectedUserId && null != user && selectedUserId.equals(user.getId());
     }
 
-    private void loadStreamOnto(@Nullable String userId, @NonNull ViewHolder holder) {
-        MediaStream normalStream = getMediaStream(userId);
+    private void loadStreamOnto(@Nullable String userId, @Nullable MediaStream normalStream, @NonNull ViewHolder holder) {
+        if (null != userId && null != normalStream && normalStream.videoTracks().size() > 0
+                && userId.equalsIgnoreCase(normalStream.peerId()) && viewportTracker.isVisible(holder)) {
+            //the renderer is already displaying this stream, prevent the unAttach/attach churn
+            VideoAttachTracker tracker = VoxeetToolkit.getInstance().getVideoAttachTracker();
+            if (!tracker.attach(holder.videoView, userId, normalStream)) return;
 
-        Log.d("VideoView", "loadStreamOnto: having stream for user " + userId + " := " + (null != normalStream ? normalStream.peerId() + " " + normalStream.videoTracks().size() : "") + " " + normalStream + " " + holder);
+            if (null != holder.attachedParticipantId && !userId.equals(holder.attachedParticipantId)) {
+                onVideoHidden(holder.attachedParticipantId);
+            }
 
-        if (null != normalStream && normalStream.videoTracks().size() > 0 && userId.equalsIgnoreCase(normalStream.peerId())) {
-            holder.videoView.attach(userId, normalStream);
+            Log.d("VideoView", "loadStreamOnto: attached stream for user " + userId + " := " + normalStream.peerId() + " " + normalStream.videoTracks().size() + " " + holder);
+            holder.attachedParticipantId = userId;
             holder.videoView.setVisibility(View.VISIBLE);
             holder.avatar.setVisibility(View.GONE);
+
+            StreamQualityHook hook = VoxeetToolkit.getInstance().getStreamQualityHook();
+            if (null != hook) hook.onVideoDisplayed(userId, avatarSize, avatarSize);
         } else {
-            holder.videoView.unAttach();
-            holder.videoView.setVisibility(View.GONE);
-            holder.avatar.setVisibility(View.VISIBLE);
+            releaseStream(holder);
+        }
+    }
+
+    private void releaseStream(@NonNull ViewHolder holder) {
+        if (null != holder.attachedParticipantId) {
+            onVideoHidden(holder.attachedParticipantId);
         }
+
+        holder.attachedParticipantId = null;
+        VoxeetToolkit.getInstance().getVideoAttachTracker().release(holder.videoView);
+        holder.videoView.setVisibility(View.GONE);
+        holder.avatar.setVisibility(View.VISIBLE);
+    }
+
+    private void onVideoHidden(@NonNull String participantId) {
+        StreamQualityHook hook = VoxeetToolkit.getInstance().getStreamQualityHook();
+        if (null != hook) hook.onVideoHidden(participantId);
     }
 
     /**
@@ -301,32 +538,19 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         }
     }
 
-    private Participant getItem(int position) {
-        return users.get(position);
+    private ParticipantViewItem getItem(int position) {
+        return differ.getCurrentList().get(position);
     }
 
     /**
      * Displays user's avatar in the specified imageView.
      *
-     * @param conferenceUser a valid user to bind into picasso
-     * @param imageView      the landing image view
+     * @param url       the avatar url of the user, null to use the default avatar
+     * @param imageView the landing image view
      */
-    private void loadViaPicasso(@NonNull Participant conferenceUser, ImageView imageView) {
+    private void loadAvatar(@Nullable String url, ImageView imageView) {
         try {
-            String url = conferenceUser.getInfo().getAvatarUrl();
-            if (!TextUtils.isEmpty(url)) {
-                Picasso.get()
-                        .load(url)
-                        .noFade()
-                        .resize(avatarSize, avatarSize)
-                        .placeholder(R.drawable.default_avatar)
-                        .error(R.drawable.default_avatar)
-                        .into(imageView);
-            } else {
-                Picasso.get()
-                        .load(R.drawable.default_avatar)
-                        .into(imageView);
-            }
+            VoxeetToolkit.getInstance().getAvatarLoader().load(url, avatarSize, imageView);
         } catch (Exception e) {
             Log.e(TAG, "error " + e.getMessage());
         }
@@ -334,7 +558,12 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
 
     @Override
     public int getItemCount() {
-        return users.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.get(getItem(position).getId());
     }
 
     /**
@@ -358,14 +587,20 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         }
         */
 
-        notifyDataSetChanged();
+        submit();
     }
 
     /**
      * Clear participants.
      */
     public void clearParticipants() {
+        this.participants.clear();
         this.users.clear();
+        selectedUserId = null;
+        mRequestUserIdChanged = null;
+        //the cells are removed before their ids are forgotten
+        differ.submitList(null);
+        stableIds.clear();
     }
 
     /**
@@ -381,10 +616,40 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
         return mRequestUserIdChanged;
     }
 
+    /**
+     * Get the participant currently selected by the user
+     *
+     * @return the id of the selected participant or null
+     */
+    @Nullable
+    public String getSelectedParticipantId() {
+        return selectedUserId;
+    }
+
+    /**
+     * Restore a selection previously made by the user, the listener is called as if the cell was clicked
+     *
+     * @param participantId the id of the participant to select
+     * @return true if the participant is managed by this adapter and could be selected
+     */
+    public boolean restoreSelectedParticipant(@Nullable String participantId) {
+        if (null == participantId) return false;
+        if (participantId.equals(selectedUserId)) return true;
+
+        Participant user = participants.get(participantId);
+        if (null == user || !user.isLocallyActive()) return false;
+
+        selectedUserId = participantId;
+        if (listener != null)
+            listener.onParticipantSelected(user, getMediaStream(user));
+        submit();
+        return true;
+    }
+
     /**
      * The type View holder.
      */
-    class ViewHolder extends RecyclerView.ViewHolder {
+    class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener, View.OnLongClickListener {
         private VideoView videoView;
 
         private TextView name;
@@ -393,6 +658,16 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
 
         private ImageView overlay;
 
+        private ImageView speakingIndicator;
+
+        private boolean speaking;
+
+        @Nullable
+        private Integer speakingColor;
+
+        @Nullable
+        private String attachedParticipantId;
+
         /**
          * Instantiates a new View holder.
          *
@@ -407,13 +682,33 @@ public class ParticipantViewAdapter extends RecyclerView.Adapter<ParticipantView
 
             overlay = (ImageView) view.findViewById(R.id.overlay_avatar);
 
+            speakingIndicator = (ImageView) view.findViewById(R.id.speaking_indicator);
+
             avatar = (RoundedImageView) view.findViewById(R.id.avatar);
+
+            //created once per holder, the participant is resolved from the adapter position
+            view.setOnClickListener(this);
+            view.setOnLongClickListener(this);
+        }
+
+        @Override
+        public void onClick(View view) {
+            onCellClicked(this);
+        }
+
+        @Override
+        public boolean onLongClick(View view) {
+            onCellLongClicked(this);
+            return true;
         }
     }
 
     @Nullable
-    private MediaStream getMediaStream(@Nullable String userId) {
-        Participant user = VoxeetSdk.conference().findParticipantById(userId);
-        return null != user ? user.streamsHandler().getFirst(MediaStreamType.Camera) : null;
+    private MediaStream getMediaStream(@NonNull Participant user) {
+        ParticipantIndex index = VoxeetToolkit.getInstance().getParticipantIndex();
+        if (null != index.get(user.getId())) {
+            return index.getStream(user.getId(), MediaStreamType.Camera);
+        }
+        return user.streamsHandler().getFirst(MediaStreamType.Camera);
     }
 }
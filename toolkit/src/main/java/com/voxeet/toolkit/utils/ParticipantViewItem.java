@@ -0,0 +1,140 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.text.TextUtils;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.sdk.models.Participant;
+import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
+
+/**
+ * Immutable representation of a participant cell
+ * <p>
+ * The SDK's Participant instances are mutated in place, the values required to display a cell
+ * are then captured when the list is built so that the diff can be computed in background
+ */
+public class ParticipantViewItem {
+
+    @NonNull
+    private final Participant participant;
+
+    @NonNull
+    private final String id;
+
+    @Nullable
+    private final String name;
+
+    @Nullable
+    private final String avatarUrl;
+
+    @Nullable
+    private final ConferenceParticipantStatus status;
+
+    private final boolean onAir;
+
+    @Nullable
+    private final MediaStream stream;
+
+    private final int videoTracks;
+
+    private final boolean selected;
+
+    public ParticipantViewItem(@NonNull Participant participant,
+                               @Nullable MediaStream stream,
+                               boolean selected) {
+        this.participant = participant;
+        this.id = null != participant.getId() ? participant.getId() : "";
+        this.name = null != participant.getInfo() ? participant.getInfo().getName() : null;
+        this.avatarUrl = null != participant.getInfo() ? participant.getInfo().getAvatarUrl() : null;
+        this.status = participant.getStatus();
+        this.onAir = participant.isLocallyActive();
+        this.stream = stream;
+        this.videoTracks = null != stream ? stream.videoTracks().size() : 0;
+        this.selected = selected;
+    }
+
+    @NonNull
+    public Participant getParticipant() {
+        return participant;
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    @Nullable
+    public String getAvatarUrl() {
+        return avatarUrl;
+    }
+
+    @Nullable
+    public ConferenceParticipantStatus getStatus() {
+        return status;
+    }
+
+    public boolean isOnAir() {
+        return onAir;
+    }
+
+    /**
+     * Get the camera stream to display in the cell
+     *
+     * @return the stream if it owns at least one video track, null otherwise
+     */
+    @Nullable
+    public MediaStream getStream() {
+        return videoTracks > 0 ? stream : null;
+    }
+
+    public boolean isSelected() {
+        return selected;
+    }
+
+    /**
+     * Compute the parts of the cell which differs from the given item
+     *
+     * @param other the previously displayed item for the same participant
+     * @return the mask of ParticipantPayload, 0 if nothing changed
+     */
+    public int diff(@NonNull ParticipantViewItem other) {
+        int mask = 0;
+        if (!TextUtils.equals(name, other.name)) mask |= ParticipantPayload.NAME.flag();
+        if (onAir != other.onAir || status != other.status)
+            mask |= ParticipantPayload.ACTIVE_STATE.flag();
+        if (!TextUtils.equals(avatarUrl, other.avatarUrl))
+            mask |= ParticipantPayload.AVATAR.flag();
+        if (getStream() != other.getStream()) mask |= ParticipantPayload.VIDEO_STREAM.flag();
+        if (selected != other.selected) mask |= ParticipantPayload.SELECTION.flag();
+        return mask;
+    }
+
+    /**
+     * DiffUtil callback resolving the identity of the cells from the participant id
+     */
+    public static final DiffUtil.ItemCallback<ParticipantViewItem> DIFF = new DiffUtil.ItemCallback<ParticipantViewItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ParticipantViewItem oldItem, @NonNull ParticipantViewItem newItem) {
+            return oldItem.id.equals(newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ParticipantViewItem oldItem, @NonNull ParticipantViewItem newItem) {
+            return 0 == newItem.diff(oldItem);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull ParticipantViewItem oldItem, @NonNull ParticipantViewItem newItem) {
+            int mask = newItem.diff(oldItem);
+            return 0 != mask ? mask : null;
+        }
+    };
+}
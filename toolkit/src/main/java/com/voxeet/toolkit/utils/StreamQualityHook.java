@@ -0,0 +1,28 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receive the size at which the videos of the participants are displayed
+ * <p>
+ * Implementations can request a lower quality from the SDK for the videos displayed in small tiles
+ * and pause the ones which are no longer displayed. Called on the main thread
+ */
+public interface StreamQualityHook {
+
+    /**
+     * Called when the video of a participant starts to be rendered or is resized
+     *
+     * @param participantId the id of the participant
+     * @param width         the width of the renderer in pixels
+     * @param height        the height of the renderer in pixels
+     */
+    void onVideoDisplayed(@NonNull String participantId, int width, int height);
+
+    /**
+     * Called when the video of a participant is no longer rendered by a cell
+     *
+     * @param participantId the id of the participant
+     */
+    void onVideoHidden(@NonNull String participantId);
+}
@@ -0,0 +1,106 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Immutable description of the streams displayed by the conference view
+ *
+ * @param <S> the type of the streams, MediaStream in the views
+ */
+public class StreamRoute<S> {
+
+    /**
+     * What the main area of the conference view displays
+     */
+    public enum State {
+        /**
+         * Nothing to display, nobody is in the conference and the local camera is off
+         */
+        NONE,
+        /**
+         * Nobody else is in the conference, the local camera is displayed in the main area
+         */
+        SELF_ONLY,
+        /**
+         * The camera of a remote participant is displayed in the main area
+         */
+        REMOTE_CAMERA,
+        /**
+         * The screen share of a remote participant is displayed in the main area
+         */
+        REMOTE_SCREENSHARE,
+        /**
+         * No remote video is available, the speaker view is displayed
+         */
+        SPEAKER_AVATAR
+    }
+
+    private final static StreamRoute EMPTY = new StreamRoute<>(State.NONE, null, null, null);
+
+    /**
+     * @return the route displaying nothing
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <S> StreamRoute<S> empty() {
+        return (StreamRoute<S>) EMPTY;
+    }
+
+    @NonNull
+    private final State state;
+
+    @Nullable
+    private final String selectedPeerId;
+
+    @Nullable
+    private final S selectedStream;
+
+    @Nullable
+    private final S selfStream;
+
+    StreamRoute(@NonNull State state,
+                @Nullable String selectedPeerId,
+                @Nullable S selectedStream,
+                @Nullable S selfStream) {
+        this.state = state;
+        this.selectedPeerId = selectedPeerId;
+        this.selectedStream = selectedStream;
+        this.selfStream = selfStream;
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the participant displayed in the main area
+     *
+     * @return the id of the participant or null if no video is displayed in the main area
+     */
+    @Nullable
+    public String getSelectedPeerId() {
+        return selectedPeerId;
+    }
+
+    @Nullable
+    public S getSelectedStream() {
+        return selectedStream;
+    }
+
+    /**
+     * Get the local camera displayed in the small self view
+     *
+     * @return the stream or null if the self view must be released
+     */
+    @Nullable
+    public S getSelfStream() {
+        return selfStream;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamRoute{" + state + " " + selectedPeerId + " self=" + (null != selfStream) + "}";
+    }
+}
@@ -0,0 +1,152 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.voxeet.android.media.MediaStreamType;
+
+/**
+ * State machine deciding which streams the conference view displays
+ * <p>
+ * The target route only depends on the given inputs so that it can be computed without any view. The
+ * priorities are, for the main area:
+ * - a remote screen share, from the preferred participant, the one already displayed, or the first started
+ * - the camera of the participant selected by the user
+ * - the camera already displayed, to avoid switching on every change of active speaker
+ * - the camera of the active speaker then the first remote camera started
+ * - the local camera while nobody else is in the conference
+ * <p>
+ * The streams are only compared and given back, they are read through the StreamSource
+ * <p>
+ * Not thread safe
+ *
+ * @param <S> the type of the streams, MediaStream in the views
+ */
+public class StreamRouter<S> {
+
+    /**
+     * Give the streams of the participants
+     *
+     * @param <S> the type of the streams
+     */
+    public interface StreamSource<S> {
+        /**
+         * @param participantId the id of the participant
+         * @param type          the type of stream
+         * @return the first stream of this type or null
+         */
+        @Nullable
+        S getStream(@Nullable String participantId, @NonNull MediaStreamType type);
+
+        /**
+         * @param stream a stream given by getStream
+         * @return true if the stream has at least one video track
+         */
+        boolean hasVideo(@NonNull S stream);
+
+        /**
+         * @param type       the type of stream
+         * @param excludedId a participant to skip
+         * @return the id of the first participant owning a video of this type, null if none
+         */
+        @Nullable
+        String getFirstVideo(@NonNull MediaStreamType type, @Nullable String excludedId);
+    }
+
+    @NonNull
+    private StreamRoute<S> current = StreamRoute.empty();
+
+    /**
+     * Get the last route computed
+     *
+     * @return the route, empty before the first call to route or after reset
+     */
+    @NonNull
+    public StreamRoute<S> getCurrent() {
+        return current;
+    }
+
+    /**
+     * Forget the current route, the next route will not be sticky
+     */
+    public void reset() {
+        current = StreamRoute.empty();
+    }
+
+    /**
+     * Compute the route to apply and make it the current one
+     *
+     * @param localParticipantId the id of the local participant, may be null while connecting
+     * @param source             the streams of the participants
+     * @param selectedId         the participant selected by the user, null if none
+     * @param activeSpeakerId    the active speaker, null if none
+     * @param hasParticipants    true if a remote participant is in the conference
+     * @return the new current route
+     */
+    @NonNull
+    public StreamRoute<S> route(@Nullable String localParticipantId,
+                                @NonNull StreamSource<S> source,
+                                @Nullable String selectedId,
+                                @Nullable String activeSpeakerId,
+                                boolean hasParticipants) {
+        String localId = null != localParticipantId ? localParticipantId : "";
+        S localCamera = video(source, source.getStream(localId, MediaStreamType.Camera));
+        String preferredId = null != selectedId ? selectedId : activeSpeakerId;
+        //the local camera is never kept, it is only displayed while nobody else is here
+        String currentId = StreamRoute.State.SELF_ONLY != current.getState() ? current.getSelectedPeerId() : null;
+
+        StreamRoute<S> target;
+        String peerId = findRemote(localId, source, MediaStreamType.ScreenShare,
+                preferredId, currentId, null);
+        if (null != peerId) {
+            target = new StreamRoute<>(StreamRoute.State.REMOTE_SCREENSHARE, peerId,
+                    source.getStream(peerId, MediaStreamType.ScreenShare), localCamera);
+        } else if (null != (peerId = findRemote(localId, source, MediaStreamType.Camera,
+                selectedId, currentId, activeSpeakerId))) {
+            target = new StreamRoute<>(StreamRoute.State.REMOTE_CAMERA, peerId,
+                    source.getStream(peerId, MediaStreamType.Camera), localCamera);
+        } else if (hasParticipants) {
+            target = new StreamRoute<>(StreamRoute.State.SPEAKER_AVATAR, null, null, localCamera);
+        } else if (null != localCamera) {
+            target = new StreamRoute<>(StreamRoute.State.SELF_ONLY, localId, localCamera, null);
+        } else {
+            target = StreamRoute.empty();
+        }
+
+        current = target;
+        return target;
+    }
+
+    /**
+     * Find the remote participant whose stream must be displayed
+     *
+     * @param first  the participant to check first
+     * @param second the participant to check if the first one has no video
+     * @param third  the participant to check before the first video started
+     * @return the id of the participant or null if no remote video of this type is available
+     */
+    @Nullable
+    private String findRemote(@NonNull String localId,
+                              @NonNull StreamSource<S> source,
+                              @NonNull MediaStreamType type,
+                              @Nullable String first,
+                              @Nullable String second,
+                              @Nullable String third) {
+        if (isRemoteVideo(localId, first, source, type)) return first;
+        if (isRemoteVideo(localId, second, source, type)) return second;
+        if (isRemoteVideo(localId, third, source, type)) return third;
+
+        return source.getFirstVideo(type, localId);
+    }
+
+    private boolean isRemoteVideo(@NonNull String localId, @Nullable String participantId,
+                                  @NonNull StreamSource<S> source, @NonNull MediaStreamType type) {
+        return null != participantId && !participantId.equals(localId)
+                && null != video(source, source.getStream(participantId, type));
+    }
+
+    @Nullable
+    private static <S> S video(@NonNull StreamSource<S> source, @Nullable S stream) {
+        return null != stream && source.hasVideo(stream) ? stream : null;
+    }
+}
@@ -0,0 +1,194 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.voxeet.toolkit.implementation.overlays.OverlayState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single scheduler for the periodic tasks of the toolkit
+ * <p>
+ * The tasks are suspended while the application is not in the foreground and can be throttled while
+ * the overlay is minimized. Every task shares one message on the main looper, posted for the earliest
+ * due task only. When the tasks are resumed, they are run right away to catch up
+ * <p>
+ * Must be used from the main thread
+ */
+public class ToolkitTicker {
+
+    /**
+     * Multiplier applied to the period of the throttled tasks while the overlay is minimized
+     */
+    private final static int MINIMIZED_THROTTLE = 3;
+
+    @NonNull
+    private Handler handler;
+
+    @NonNull
+    private List<Entry> entries;
+
+    private boolean foreground = true;
+
+    @NonNull
+    private OverlayState overlayState = OverlayState.MINIMIZED;
+
+    private boolean scheduled;
+
+    private Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            scheduled = false;
+
+            long now = SystemClock.uptimeMillis();
+            //entries may be unregistered while iterating
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.nextTick > now) continue;
+
+                entry.nextTick = now + getPeriod(entry);
+                try {
+                    entry.task.onTick();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+
+            schedule();
+        }
+    };
+
+    public ToolkitTicker() {
+        handler = new Handler(Looper.getMainLooper());
+        entries = new ArrayList<>();
+    }
+
+    /**
+     * Register a periodic task, it is run right away if the ticker is not suspended
+     *
+     * @param task                  the task to run
+     * @param period                the period in milliseconds
+     * @param throttleWhenMinimized true to run the task less often while the overlay is minimized
+     */
+    public void register(@NonNull Task task, long period, boolean throttleWhenMinimized) {
+        Entry entry = find(task);
+        if (null == entry) {
+            entry = new Entry(task);
+            entries.add(entry);
+        }
+        entry.period = Math.max(1, period);
+        entry.throttleWhenMinimized = throttleWhenMinimized;
+        entry.nextTick = 0;
+
+        reschedule();
+    }
+
+    /**
+     * Unregister a task, no effect if it was not registered
+     *
+     * @param task the task to remove
+     */
+    public void unregister(@NonNull Task task) {
+        Entry entry = find(task);
+        if (null != entry) {
+            entries.remove(entry);
+            reschedule();
+        }
+    }
+
+    /**
+     * Check if the periodic tasks are currently suspended
+     *
+     * @return true when the application is in background
+     */
+    public boolean isSuspended() {
+        return !foreground;
+    }
+
+    /**
+     * Called by the toolkit when the application goes to the foreground or the background
+     *
+     * @param foreground true if an activity of the application is started
+     */
+    public void setForeground(boolean foreground) {
+        if (this.foreground == foreground) return;
+        this.foreground = foreground;
+
+        if (foreground) catchUp();
+        reschedule();
+    }
+
+    /**
+     * Called by the overlay when it is expanded or minimized
+     *
+     * @param overlayState the new state of the overlay
+     */
+    public void setOverlayState(@NonNull OverlayState overlayState) {
+        if (this.overlayState == overlayState) return;
+        this.overlayState = overlayState;
+
+        if (OverlayState.EXPANDED == overlayState) catchUp();
+        reschedule();
+    }
+
+    private void catchUp() {
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).nextTick = 0;
+        }
+    }
+
+    private long getPeriod(@NonNull Entry entry) {
+        boolean throttled = entry.throttleWhenMinimized && OverlayState.MINIMIZED == overlayState;
+        return throttled ? entry.period * MINIMIZED_THROTTLE : entry.period;
+    }
+
+    private void reschedule() {
+        if (scheduled) {
+            handler.removeCallbacks(tick);
+            scheduled = false;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled || !foreground || entries.isEmpty()) return;
+
+        long next = Long.MAX_VALUE;
+        for (int i = 0; i < entries.size(); i++) {
+            next = Math.min(next, entries.get(i).nextTick);
+        }
+
+        scheduled = true;
+        handler.postAtTime(tick, Math.max(next, SystemClock.uptimeMillis()));
+    }
+
+    private Entry find(@NonNull Task task) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).task == task) return entries.get(i);
+        }
+        return null;
+    }
+
+    private static class Entry {
+        @NonNull
+        private final Task task;
+        private long period;
+        private boolean throttleWhenMinimized;
+        private long nextTick;
+
+        private Entry(@NonNull Task task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * A periodic task run on the main thread
+     */
+    public interface Task {
+        void onTick();
+    }
+}
@@ -1,13 +1,18 @@
 package com.voxeet.toolkit.utils;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.voxeet.android.media.MediaStream;
-import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.models.Participant;
-import com.voxeet.sdk.models.v1.ConferenceParticipantStatus;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public class ToolkitUtils {
 
@@ -15,17 +20,80 @@ public class ToolkitUtils {
         return null != mediaStream && mediaStream.videoTracks().size() > 0;
     }
 
+    /**
+     * Check if a remote participant is in the conference, from the last snapshot of the conference controller
+     *
+     * @return true if the local participant is not alone
+     */
     public static boolean hasParticipants() {
-        String ownUserId = VoxeetSdk.session().getParticipantId();
-        if (null == ownUserId) ownUserId = "";
-        List<Participant> users = VoxeetSdk.conference().getParticipants();
-
-        for (Participant user : users) {
-            if (ConferenceParticipantStatus.ON_AIR.equals(user.getStatus()) && !ownUserId.equals(user.getId()))
-                return true;
-            if (ConferenceParticipantStatus.CONNECTING.equals(user.getStatus()) && !ownUserId.equals(user.getId()) && user.streams().size() > 0)
-                return true;
+        return VoxeetToolkit.getInstance().getConferenceToolkit().getSnapshot().hasParticipants();
+    }
+
+    /**
+     * Give the id of the elements to merge
+     *
+     * @param <T> the type of the elements
+     */
+    interface IdProvider<T> {
+        @Nullable
+        String getId(@NonNull T item);
+    }
+
+    private final static IdProvider<Participant> PARTICIPANT_ID = new IdProvider<Participant>() {
+        @Nullable
+        @Override
+        public String getId(@NonNull Participant participant) {
+            return participant.getId();
+        }
+    };
+
+    /**
+     * Merge two lists of participants in O(n), by id
+     * <p>
+     * The participants without id are only compared by reference. None of the given lists is modified
+     *
+     * @param participants the participants to keep first
+     * @param added        the participants to append when not already in the first list
+     * @return a new list with every participant once
+     */
+    @NonNull
+    public static List<Participant> mergeParticipants(@NonNull List<Participant> participants,
+                                                      @NonNull List<Participant> added) {
+        return merge(participants, added, PARTICIPANT_ID);
+    }
+
+    /**
+     * Merge two lists in O(n), by id, the elements without id are only compared by reference
+     *
+     * @param items the elements to keep first
+     * @param added the elements to append when not already in the first list
+     * @param ids   the ids of the elements
+     * @return a new list with every element once
+     */
+    @NonNull
+    static <T> List<T> merge(@NonNull List<T> items, @NonNull List<T> added, @NonNull IdProvider<T> ids) {
+        List<T> merged = new ArrayList<>(items.size() + added.size());
+        Set<String> known = new HashSet<>();
+        Set<T> withoutId = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+
+        append(merged, items, ids, known, withoutId);
+        append(merged, added, ids, known, withoutId);
+        return merged;
+    }
+
+    private static <T> void append(@NonNull List<T> merged,
+                                   @NonNull List<T> items,
+                                   @NonNull IdProvider<T> ids,
+                                   @NonNull Set<String> known,
+                                   @NonNull Set<T> withoutId) {
+        for (int i = 0, size = items.size(); i < size; i++) {
+            T item = items.get(i);
+            if (null == item) continue;
+
+            String id = ids.getId(item);
+            if (null != id ? known.add(id) : withoutId.add(item)) {
+                merged.add(item);
+            }
         }
-        return false;
     }
 }
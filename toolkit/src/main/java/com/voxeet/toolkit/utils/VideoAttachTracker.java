@@ -0,0 +1,164 @@
+package com.voxeet.toolkit.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.voxeet.android.media.MediaStream;
+import com.voxeet.sdk.views.VideoView;
+
+import java.util.WeakHashMap;
+
+/**
+ * Single entry point to attach streams to the VideoView of the toolkit
+ * <p>
+ * Track the stream displayed by each VideoView so that requesting the stream it already displays is a
+ * hit and does nothing. A different stream is attached after releasing the current one. The time spent
+ * in the attach calls and the hit rate are recorded
+ * <p>
+ * This is not a pool of warm renderers : the renderer of a VideoView and its EGL context are private to
+ * the SDK view, which only exposes attach(), unAttach(), isAttached() and getPeerId(). A renderer can not
+ * be created outside of a VideoView nor handed from one view to another, so moving a stream from the
+ * selected view to the self view always goes through unAttach() and attach(). Pooling the VideoView
+ * instances themselves would not help either, a SurfaceView moved to another parent loses its surface
+ * when it is detached from the window. What can be avoided is done here : a view asked for the stream it
+ * already displays is left untouched
+ * <p>
+ * Must be used from the main thread
+ */
+public class VideoAttachTracker {
+
+    private final static String TAG = VideoAttachTracker.class.getSimpleName();
+
+    /**
+     * Number of attaches between two logs of the metrics
+     */
+    private final static int LOG_INTERVAL = 50;
+
+    /**
+     * Stream currently displayed by each renderer, the renderers are not retained
+     */
+    @NonNull
+    private WeakHashMap<VideoView, MediaStream> attached;
+
+    private long hits;
+    private long misses;
+    private long releases;
+    private long totalAttachNanos;
+    private long maxAttachNanos;
+
+    public VideoAttachTracker() {
+        attached = new WeakHashMap<>();
+    }
+
+    /**
+     * Display a stream in a renderer
+     *
+     * @param view   the renderer
+     * @param peerId the id of the participant owning the stream
+     * @param stream the stream to display
+     * @return true if the stream was attached, false if the renderer was already displaying it
+     */
+    public boolean attach(@NonNull VideoView view, @Nullable String peerId, @NonNull MediaStream stream) {
+        if (isAttached(view, peerId, stream)) {
+            hits++;
+            return false;
+        }
+
+        long start = System.nanoTime();
+        if (view.isAttached()) {
+            releases++;
+            view.unAttach();
+        }
+        view.attach(peerId, stream);
+        long elapsed = System.nanoTime() - start;
+
+        attached.put(view, stream);
+        misses++;
+        totalAttachNanos += elapsed;
+        maxAttachNanos = Math.max(maxAttachNanos, elapsed);
+
+        if (0 == misses % LOG_INTERVAL) {
+            Log.d(TAG, "attach: hit rate " + getHitRate() + " average " + getAverageAttachLatency()
+                    + "ms max " + getMaxAttachLatency() + "ms releases " + releases);
+        }
+        return true;
+    }
+
+    /**
+     * Release the renderer of a view, nothing is done if no stream is attached
+     *
+     * @param view the renderer to release
+     */
+    public void release(@NonNull VideoView view) {
+        attached.remove(view);
+        if (!view.isAttached()) return;
+
+        releases++;
+        view.unAttach();
+    }
+
+    /**
+     * Check if a renderer is displaying a given stream
+     *
+     * @param view   the renderer
+     * @param peerId the id of the participant owning the stream
+     * @param stream the stream
+     * @return true if the stream is attached to the renderer
+     */
+    public boolean isAttached(@NonNull VideoView view, @Nullable String peerId, @Nullable MediaStream stream) {
+        return null != stream && view.isAttached() && stream == attached.get(view)
+                && null != peerId && peerId.equals(view.getPeerId());
+    }
+
+    /**
+     * Get the ratio of the attach requests for a stream already displayed
+     *
+     * @return the ratio between 0 and 1
+     */
+    public float getHitRate() {
+        long total = hits + misses;
+        return total > 0 ? hits / (float) total : 0;
+    }
+
+    /**
+     * Get the average time spent attaching a stream to a renderer
+     *
+     * @return the time in milliseconds
+     */
+    public float getAverageAttachLatency() {
+        return misses > 0 ? totalAttachNanos / (float) misses / 1000000f : 0;
+    }
+
+    /**
+     * Get the longest time spent attaching a stream to a renderer
+     *
+     * @return the time in milliseconds
+     */
+    public float getMaxAttachLatency() {
+        return maxAttachNanos / 1000000f;
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    public long getReleaseCount() {
+        return releases;
+    }
+
+    /**
+     * Reset the recorded metrics, the attached streams are kept
+     */
+    public void resetMetrics() {
+        hits = 0;
+        misses = 0;
+        releases = 0;
+        totalAttachNanos = 0;
+        maxAttachNanos = 0;
+    }
+}
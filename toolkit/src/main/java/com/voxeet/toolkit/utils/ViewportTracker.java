@@ -0,0 +1,224 @@
+package com.voxeet.toolkit.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.voxeet.toolkit.configuration.Viewport;
+import com.voxeet.toolkit.controllers.ConferenceToolkitController;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Track which cells of a RecyclerView are visible enough to render a video
+ * <p>
+ * A cell enters the viewport as soon as the configured fraction of its surface is visible. It leaves
+ * the viewport once it stayed under this fraction for the grace period, or right away when it is
+ * detached from the window. The cells are evaluated after each layout pass and scroll
+ * <p>
+ * Must be used from the main thread
+ */
+public class ViewportTracker extends RecyclerView.OnScrollListener
+        implements RecyclerView.OnChildAttachStateChangeListener, ViewTreeObserver.OnGlobalLayoutListener {
+
+    private final static Viewport DEFAULT_CONFIGURATION = new Viewport();
+
+    @NonNull
+    private Listener listener;
+
+    @Nullable
+    private RecyclerView recyclerView;
+
+    @NonNull
+    private Handler handler;
+
+    @NonNull
+    private HashSet<RecyclerView.ViewHolder> visible;
+
+    /**
+     * Time at which the cells under the threshold will leave the viewport
+     */
+    @NonNull
+    private HashMap<RecyclerView.ViewHolder, Long> leaving;
+
+    @NonNull
+    private ArrayList<RecyclerView.ViewHolder> changes;
+
+    private Runnable evaluate = new Runnable() {
+        @Override
+        public void run() {
+            evaluate();
+        }
+    };
+
+    public ViewportTracker(@NonNull Listener listener) {
+        this.listener = listener;
+        handler = new Handler(Looper.getMainLooper());
+        visible = new HashSet<>();
+        leaving = new HashMap<>();
+        changes = new ArrayList<>();
+    }
+
+    /**
+     * Start tracking the cells of a RecyclerView
+     *
+     * @param recyclerView the view to track, replaces the previous one
+     */
+    public void attach(@NonNull RecyclerView recyclerView) {
+        if (this.recyclerView == recyclerView) return;
+        detach();
+
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(this);
+        recyclerView.addOnChildAttachStateChangeListener(this);
+        recyclerView.getViewTreeObserver().addOnGlobalLayoutListener(this);
+    }
+
+    /**
+     * Stop tracking, every cell still in the viewport leaves it
+     */
+    public void detach() {
+        handler.removeCallbacks(evaluate);
+        if (null == recyclerView) return;
+
+        recyclerView.removeOnScrollListener(this);
+        recyclerView.removeOnChildAttachStateChangeListener(this);
+        recyclerView.getViewTreeObserver().removeGlobalOnLayoutListener(this);
+        recyclerView = null;
+
+        changes.clear();
+        changes.addAll(visible);
+        visible.clear();
+        leaving.clear();
+        for (int i = 0; i < changes.size(); i++) listener.onViewportLeft(changes.get(i));
+        changes.clear();
+    }
+
+    /**
+     * Check if a cell can render its video
+     *
+     * @param holder the holder of the cell
+     * @return true if the cell is in the viewport, including its grace period
+     */
+    public boolean isVisible(@NonNull RecyclerView.ViewHolder holder) {
+        return visible.contains(holder);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        evaluate();
+    }
+
+    @Override
+    public void onGlobalLayout() {
+        evaluate();
+    }
+
+    @Override
+    public void onChildViewAttachedToWindow(@NonNull View view) {
+        //the cell is not laid out yet, it will be evaluated with the layout pass
+    }
+
+    @Override
+    public void onChildViewDetachedFromWindow(@NonNull View view) {
+        if (null == recyclerView) return;
+
+        RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+        leaving.remove(holder);
+        if (visible.remove(holder)) listener.onViewportLeft(holder);
+    }
+
+    private void evaluate() {
+        handler.removeCallbacks(evaluate);
+        if (null == recyclerView) return;
+
+        Viewport configuration = getConfiguration();
+        long now = SystemClock.uptimeMillis();
+        long nextDeadline = Long.MAX_VALUE;
+        int width = recyclerView.getWidth();
+        int height = recyclerView.getHeight();
+
+        for (int i = 0, count = recyclerView.getChildCount(); i < count; i++) {
+            View child = recyclerView.getChildAt(i);
+            RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(child);
+            if (RecyclerView.NO_POSITION == holder.getAdapterPosition()) continue;
+
+            if (visibleFraction(child, width, height) >= configuration.visibilityThreshold) {
+                leaving.remove(holder);
+                if (visible.add(holder)) changes.add(holder);
+            } else if (visible.contains(holder) && !leaving.containsKey(holder)) {
+                leaving.put(holder, now + configuration.detachGracePeriod);
+            }
+        }
+
+        for (int i = 0; i < changes.size(); i++) listener.onViewportEntered(changes.get(i));
+        changes.clear();
+
+        Iterator<Map.Entry<RecyclerView.ViewHolder, Long>> iterator = leaving.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<RecyclerView.ViewHolder, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                iterator.remove();
+                visible.remove(entry.getKey());
+                changes.add(entry.getKey());
+            } else {
+                nextDeadline = Math.min(nextDeadline, entry.getValue());
+            }
+        }
+
+        for (int i = 0; i < changes.size(); i++) listener.onViewportLeft(changes.get(i));
+        changes.clear();
+
+        if (Long.MAX_VALUE != nextDeadline) handler.postAtTime(evaluate, nextDeadline);
+    }
+
+    private float visibleFraction(@NonNull View child, int width, int height) {
+        int childWidth = child.getWidth();
+        int childHeight = child.getHeight();
+        if (childWidth <= 0 || childHeight <= 0) return 0;
+
+        float left = child.getLeft() + child.getTranslationX();
+        float top = child.getTop() + child.getTranslationY();
+        float visibleWidth = Math.min(left + childWidth, width) - Math.max(left, 0);
+        float visibleHeight = Math.min(top + childHeight, height) - Math.max(top, 0);
+        if (visibleWidth <= 0 || visibleHeight <= 0) return 0;
+
+        return (visibleWidth * visibleHeight) / (childWidth * childHeight);
+    }
+
+    @NonNull
+    private Viewport getConfiguration() {
+        VoxeetToolkit toolkit = VoxeetToolkit.instance();
+        ConferenceToolkitController controller = null != toolkit ? toolkit.getConferenceToolkit() : null;
+        return null != controller ? controller.Configuration.Viewport : DEFAULT_CONFIGURATION;
+    }
+
+    /**
+     * Receive the cells entering and leaving the viewport
+     */
+    public interface Listener {
+        /**
+         * Called when a cell became visible enough to render its video
+         *
+         * @param holder the holder of the cell
+         */
+        void onViewportEntered(@NonNull RecyclerView.ViewHolder holder);
+
+        /**
+         * Called when a cell must release its video
+         *
+         * @param holder the holder of the cell
+         */
+        void onViewportLeft(@NonNull RecyclerView.ViewHolder holder);
+    }
+}
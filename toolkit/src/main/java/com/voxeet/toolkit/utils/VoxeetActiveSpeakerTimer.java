@@ -1,17 +1,16 @@
 package com.voxeet.toolkit.utils;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import com.voxeet.sdk.VoxeetSdk;
 import com.voxeet.sdk.utils.Annotate;
+import com.voxeet.toolkit.controllers.VoxeetToolkit;
 
 /**
  * Simple Timer made to schedule interactions accross the Speakers in a conference
  * <p>
- * This class can be started, stopped and get the current active speaker
+ * This class can be started, stopped and get the current active speaker. The active speaker is now
+ * given by the shared ActiveSpeakerEngine, the listener is only called on transitions
  */
 @Annotate
 public class VoxeetActiveSpeakerTimer {
@@ -19,26 +18,16 @@ public class VoxeetActiveSpeakerTimer {
     private ActiveSpeakerListener listener;
     private String currentActiveSpeaker;
 
-    private Handler handler;
-    private Runnable refreshActiveSpeaker = new Runnable() {
-        @Override
-        public void run() {
-            if (null != handler) {
-                try {
-                    if (null != listener && null != VoxeetSdk.instance()) {
-                        String fromSdk = VoxeetSdk.conference().currentSpeaker();
+    private boolean started;
 
-                        if (null == currentActiveSpeaker || !currentActiveSpeaker.equals(fromSdk)) {
-                            currentActiveSpeaker = fromSdk;
-                            listener.onActiveSpeakerUpdated(currentActiveSpeaker);
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-                if (handler != null) {
-                    handler.postDelayed(this, 1000);
-                }
+    private ActiveSpeakerEngine.Listener engineListener = new ActiveSpeakerEngine.Listener() {
+        @Override
+        public void onActiveSpeakerChanged(@Nullable String participantId) {
+            currentActiveSpeaker = participantId;
+            try {
+                if (null != listener) listener.onActiveSpeakerUpdated(currentActiveSpeaker);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
         }
     };
@@ -64,9 +53,11 @@ public class VoxeetActiveSpeakerTimer {
      * Any attempt to call the start method when it's already started will have no effect
      */
     public void start() {
-        if (null == handler) {
-            handler = new Handler(Looper.getMainLooper());
-            handler.postDelayed(refreshActiveSpeaker, 1000);
+        if (!started) {
+            started = true;
+            ActiveSpeakerEngine engine = VoxeetToolkit.getInstance().getActiveSpeakerEngine();
+            currentActiveSpeaker = engine.getActiveSpeaker();
+            engine.register(engineListener);
         }
     }
 
@@ -75,9 +66,9 @@ public class VoxeetActiveSpeakerTimer {
      * Any call when the timer has already been stopped will have no effects
      */
     public void stop() {
-        if (null != handler) {
-            handler.removeCallbacks(refreshActiveSpeaker);
-            handler = null;
+        if (started) {
+            started = false;
+            VoxeetToolkit.getInstance().getActiveSpeakerEngine().unregister(engineListener);
         }
     }
 
@@ -4,20 +4,63 @@ import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
-import android.view.View;
+import android.view.animation.AnimationUtils;
 
 import com.voxeet.sdk.views.RoundedFrameLayout;
 import com.voxeet.toolkit.R;
+import com.voxeet.toolkit.utils.WindowHelper;
 
+/**
+ * Circular meter drawing a smoothed audio level and a peak-hold envelope
+ * <p>
+ * Levels can be given at any rate, the meter is animated and invalidated at most once per frame
+ */
 public class VoxeetVuMeter extends RoundedFrameLayout {
-    private final static int METER_UPDATE_TIMER = 20;
     private final String TAG = VoxeetVuMeter.class.getSimpleName();
-    private final int white;
-    private final int yellowOrange;
-    private final View view;
 
-    private int width;
+    /**
+     * Level under which the participant is considered as silent
+     */
+    private final static float SILENCE = 0.02f;
+
+    /**
+     * Time constants in milliseconds of the smoothing when the level rises and falls
+     */
+    private final static float ATTACK = 40f;
+    private final static float RELEASE = 250f;
+
+    /**
+     * Time in milliseconds the peak is held before decaying, and its decay per millisecond
+     */
+    private final static long PEAK_HOLD = 500;
+    private final static float PEAK_DECAY = 0.0015f;
+
+    private final static float EPSILON = 0.001f;
+
+    private final Paint basePaint;
+    private final Paint levelPaint;
+    private final Paint peakPaint;
+
+    private float centerX;
+    private float centerY;
+    private float radius;
+
+    /**
+     * Ratio of the radius hidden by the content displayed on top of the meter
+     */
+    private float innerRadiusRatio = 0;
+
+    private float target;
+    private float smoothed;
+    private float peak;
+    private long peakHoldUntil;
+    private long lastFrameTime;
+
+    private boolean invalidatePending;
 
     /**
      * Instantiates a new Voxeet vu meter.
@@ -28,18 +71,24 @@ public class VoxeetVuMeter extends RoundedFrameLayout {
     public VoxeetVuMeter(final Context context, final AttributeSet attrs) {
         super(context, attrs);
 
-        //setImageDrawable(new ColorDrawable(getResources().getColor(R.color.grey999)));
+        Resources resources = context.getResources();
 
-        updateAttrs(attrs);
+        basePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        basePaint.setStyle(Paint.Style.FILL);
+        basePaint.setColor(resources.getColor(R.color.white));
 
-        Resources resources = context.getResources();
-        white = resources.getColor(R.color.white);
-        yellowOrange = resources.getColor(R.color.yellowOrange);
+        levelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        levelPaint.setStyle(Paint.Style.FILL);
+
+        peakPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        peakPaint.setStyle(Paint.Style.STROKE);
+        peakPaint.setStrokeWidth(WindowHelper.dpToPx(context, 2));
+
+        setMeterColor(resources.getColor(R.color.yellowOrange));
 
-        view = new View(context);
-        view.setLayoutParams(new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        setWillNotDraw(false);
 
-        addView(view);
+        updateAttrs(attrs);
     }
 
     /**
@@ -48,7 +97,19 @@ public class VoxeetVuMeter extends RoundedFrameLayout {
      * @param color the color
      */
     public void setMeterColor(int color) {
+        levelPaint.setColor(color);
+        peakPaint.setColor(color);
+        invalidate();
+    }
 
+    /**
+     * Set the part of the meter hidden by the view displayed on top of it, the level is drawn from there
+     *
+     * @param ratio the ratio of the radius, between 0 and 1
+     */
+    public void setInnerRadiusRatio(float ratio) {
+        innerRadiusRatio = Math.max(0, Math.min(1, ratio));
+        invalidate();
     }
 
     private void updateAttrs(AttributeSet attrs) {
@@ -64,11 +125,9 @@ public class VoxeetVuMeter extends RoundedFrameLayout {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
 
-        width = w / 2;
-
-        //animate().scaleY(0).scaleX(0).setDuration(METER_UPDATE_TIMER).start();
-
-        requestLayout();
+        centerX = w / 2f;
+        centerY = h / 2f;
+        radius = Math.min(w, h) / 2f;
     }
 
     /**
@@ -77,7 +136,69 @@ public class VoxeetVuMeter extends RoundedFrameLayout {
      * @param vuMeter the vu meter
      */
     public void updateMeter(double vuMeter) {
-        view.setBackgroundColor(vuMeter > 0.02 ? yellowOrange : white);
+        //perceived loudness is closer to the square root of the level
+        float level = vuMeter > SILENCE ? (float) Math.min(1, Math.sqrt(vuMeter)) : 0;
+        if (level == target) return;
+
+        target = level;
+        invalidateOnNextFrame();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        invalidatePending = false;
+
+        boolean animating = step(AnimationUtils.currentAnimationTimeMillis());
+
+        canvas.drawCircle(centerX, centerY, radius, basePaint);
+
+        if (smoothed > EPSILON) {
+            float scale = innerRadiusRatio + (1 - innerRadiusRatio) * smoothed;
+            canvas.save();
+            canvas.scale(scale, scale, centerX, centerY);
+            canvas.drawCircle(centerX, centerY, radius, levelPaint);
+            canvas.restore();
+        }
+
+        if (peak > EPSILON) {
+            float peakRadius = radius * (innerRadiusRatio + (1 - innerRadiusRatio) * peak)
+                    - peakPaint.getStrokeWidth() / 2;
+            if (peakRadius > 0) canvas.drawCircle(centerX, centerY, peakRadius, peakPaint);
+        }
+
+        if (animating) invalidateOnNextFrame();
+    }
+
+    /**
+     * Move the smoothed level and the peak toward the target
+     *
+     * @param now the time of the current frame
+     * @return true if another frame is needed
+     */
+    private boolean step(long now) {
+        long elapsed = 0 == lastFrameTime ? 16 : Math.min(now - lastFrameTime, 100);
+        lastFrameTime = now;
+
+        float constant = target > smoothed ? ATTACK : RELEASE;
+        smoothed += (target - smoothed) * (1 - (float) Math.exp(-elapsed / constant));
+        if (Math.abs(target - smoothed) < EPSILON) smoothed = target;
+
+        if (smoothed >= peak) {
+            peak = smoothed;
+            peakHoldUntil = now + PEAK_HOLD;
+        } else if (now > peakHoldUntil) {
+            peak = Math.max(smoothed, peak - PEAK_DECAY * elapsed);
+        }
+
+        return smoothed != target || peak > smoothed;
+    }
+
+    private void invalidateOnNextFrame() {
+        if (!invalidatePending) {
+            invalidatePending = true;
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
     }
 
     /**
@@ -98,6 +219,10 @@ public class VoxeetVuMeter extends RoundedFrameLayout {
      * Resets the queue.
      */
     public void reset() {
-        updateMeter(0);
+        target = 0;
+        smoothed = 0;
+        peak = 0;
+        lastFrameTime = 0;
+        invalidate();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.voxeet.toolkit.views.internal.rounded;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+/**
+ * Shared cache of the bitmaps drawn from the drawables which are not bitmaps, typically the vector
+ * placeholders of the avatars
+ * <p>
+ * The bitmaps are keyed by the constant state of the drawable, shared by every drawable loaded from the
+ * same resource until it is mutated, and by their size. The state and level of the drawable are not part
+ * of the key. Evicted bitmaps are not recycled since views may still display them
+ * <p>
+ * Must be used from the main thread
+ */
+public class RoundedBitmapCache {
+
+    /**
+     * Upper bound of the cache, the placeholders are small
+     */
+    private final static int MAX_SIZE_IN_KB = 4 * 1024;
+
+    private final static LruCache<Key, Bitmap> CACHE = new LruCache<Key, Bitmap>(getMaxSize()) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return Math.max(1, value.getByteCount() / 1024);
+        }
+    };
+
+    /**
+     * Reused for the lookups, a new key is only created when a bitmap is added
+     */
+    private final static Key LOOKUP = new Key();
+
+    private RoundedBitmapCache() {
+
+    }
+
+    /**
+     * Get the bitmap previously drawn from a drawable
+     *
+     * @param state  the constant state of the drawable
+     * @param width  the width of the bitmap
+     * @param height the height of the bitmap
+     * @return the bitmap or null if it must be drawn
+     */
+    @Nullable
+    public static Bitmap get(@NonNull Drawable.ConstantState state, int width, int height) {
+        LOOKUP.set(state, width, height);
+        Bitmap bitmap = CACHE.get(LOOKUP);
+        LOOKUP.set(null, 0, 0);
+        return bitmap;
+    }
+
+    public static void put(@NonNull Drawable.ConstantState state, int width, int height, @NonNull Bitmap bitmap) {
+        Key key = new Key();
+        key.set(state, width, height);
+        CACHE.put(key, bitmap);
+    }
+
+    /**
+     * Release every bitmap, called by the VoxeetToolkit when the system is low on memory
+     */
+    public static void clear() {
+        CACHE.evictAll();
+    }
+
+    private static int getMaxSize() {
+        long maxMemoryInKb = Runtime.getRuntime().maxMemory() / 1024;
+        return (int) Math.max(1, Math.min(MAX_SIZE_IN_KB, maxMemoryInKb / 64));
+    }
+
+    private static class Key {
+        @Nullable
+        private Drawable.ConstantState state;
+        private int width;
+        private int height;
+
+        private void set(@Nullable Drawable.ConstantState state, int width, int height) {
+            this.state = state;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            //the constant states are compared by reference
+            return state == key.state && width == key.width && height == key.height;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(state);
+            result = 31 * result + width;
+            result = 31 * result + height;
+            return result;
+        }
+    }
+}
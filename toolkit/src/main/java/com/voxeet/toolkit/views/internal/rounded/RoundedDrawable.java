@@ -31,6 +31,8 @@ public class RoundedDrawable extends Drawable {
     private final RectF mDrawableRect = new RectF();
     private final RectF mBitmapRect = new RectF();
     @NonNull
+    private final Bitmap mBitmap;
+    @NonNull
     private final BitmapShader mBitmapShader;
     @NonNull
     private final Paint mBitmapPaint;
@@ -51,6 +53,7 @@ public class RoundedDrawable extends Drawable {
 
     public RoundedDrawable(@NonNull Bitmap bitmap) {
 
+        mBitmap = bitmap;
         mBitmapWidth = bitmap.getWidth();
         mBitmapHeight = bitmap.getHeight();
         mBitmapRect.set(0, 0, mBitmapWidth, mBitmapHeight);
@@ -79,8 +82,35 @@ public class RoundedDrawable extends Drawable {
         }
     }
 
+    /**
+     * Get a drawable for a bitmap, reusing the previous drawable of a view if it already draws it
+     *
+     * @param bitmap   the bitmap to draw
+     * @param previous the drawable previously displayed, may be null
+     * @return the previous drawable or a new one
+     */
+    @Nullable
+    public static RoundedDrawable fromBitmap(@Nullable Bitmap bitmap, @Nullable Drawable previous) {
+        if (null != bitmap && previous instanceof RoundedDrawable && ((RoundedDrawable) previous).mBitmap == bitmap) {
+            return (RoundedDrawable) previous;
+        }
+        return fromBitmap(bitmap);
+    }
+
     @Nullable
     public static Drawable fromDrawable(@Nullable Drawable drawable) {
+        return fromDrawable(drawable, null);
+    }
+
+    /**
+     * Get a rounded drawable, reusing the previous drawable of a view if it already draws the same bitmap
+     *
+     * @param drawable the drawable to round
+     * @param previous the drawable previously displayed, may be null
+     * @return the drawable to display
+     */
+    @Nullable
+    public static Drawable fromDrawable(@Nullable Drawable drawable, @Nullable Drawable previous) {
         if (drawable != null) {
             if (drawable instanceof RoundedDrawable) {
                 // just return if it's already a RoundedDrawable
@@ -98,9 +128,9 @@ public class RoundedDrawable extends Drawable {
             }
 
             // try to get a bitmap from the drawable and
-            Bitmap bm = drawableToBitmap(drawable);
+            Bitmap bm = cachedBitmap(drawable);
             if (bm != null) {
-                return new RoundedDrawable(bm);
+                return fromBitmap(bm, previous);
             } else {
                 Log.w(TAG, "Failed to create bitmap from drawable!");
             }
@@ -130,6 +160,29 @@ public class RoundedDrawable extends Drawable {
         return bitmap;
     }
 
+    /**
+     * Same as drawableToBitmap but the bitmaps drawn are kept in the RoundedBitmapCache, they are shared
+     * by every drawable created from the same placeholder and must never be given to the callers
+     */
+    @Nullable
+    private static Bitmap cachedBitmap(@NonNull Drawable drawable) {
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (drawable instanceof BitmapDrawable || null == state) {
+            return drawableToBitmap(drawable);
+        }
+
+        int width = Math.max(drawable.getIntrinsicWidth(), 1);
+        int height = Math.max(drawable.getIntrinsicHeight(), 1);
+
+        //the same placeholders are drawn for every bind
+        Bitmap bitmap = RoundedBitmapCache.get(state, width, height);
+        if (null == bitmap) {
+            bitmap = drawableToBitmap(drawable);
+            if (null != bitmap) RoundedBitmapCache.put(state, width, height, bitmap);
+        }
+        return bitmap;
+    }
+
     @Override
     public boolean isStateful() {
         return mBorderColor.isStateful();
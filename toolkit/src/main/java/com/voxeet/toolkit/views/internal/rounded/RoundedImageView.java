@@ -150,7 +150,7 @@ public class RoundedImageView extends ImageView {
     @Override
     public void setImageDrawable(Drawable drawable) {
         mResource = 0;
-        mDrawable = RoundedDrawable.fromDrawable(drawable);
+        mDrawable = RoundedDrawable.fromDrawable(drawable, mDrawable);
         updateDrawableAttrs();
         super.setImageDrawable(mDrawable);
     }
@@ -158,7 +158,7 @@ public class RoundedImageView extends ImageView {
     @Override
     public void setImageBitmap(Bitmap bm) {
         mResource = 0;
-        mDrawable = RoundedDrawable.fromBitmap(bm);
+        mDrawable = RoundedDrawable.fromBitmap(bm, mDrawable);
         updateDrawableAttrs();
         super.setImageDrawable(mDrawable);
     }
@@ -196,7 +196,7 @@ public class RoundedImageView extends ImageView {
                 mResource = 0;
             }
         }
-        return RoundedDrawable.fromDrawable(d);
+        return RoundedDrawable.fromDrawable(d, mDrawable);
     }
 
     @Override
@@ -0,0 +1,210 @@
+package com.voxeet.toolkit.utils;
+
+import com.voxeet.android.media.MediaStreamType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Routes computed from fake streams, without any device
+ */
+public class StreamRouterTest {
+
+    private final static String LOCAL = "local";
+
+    private FakeSource source;
+    private StreamRouter<FakeStream> router;
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        router = new StreamRouter<>();
+    }
+
+    @Test
+    public void nothingToDisplay() {
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, null, null, false);
+
+        assertEquals(StreamRoute.State.NONE, route.getState());
+        assertNull(route.getSelectedStream());
+        assertNull(route.getSelfStream());
+    }
+
+    @Test
+    public void localCameraAlone() {
+        FakeStream camera = source.add(LOCAL, MediaStreamType.Camera, true);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, null, null, false);
+
+        assertEquals(StreamRoute.State.SELF_ONLY, route.getState());
+        assertSame(camera, route.getSelectedStream());
+        assertNull(route.getSelfStream());
+    }
+
+    @Test
+    public void localCameraWithoutVideo() {
+        source.add(LOCAL, MediaStreamType.Camera, false);
+
+        assertEquals(StreamRoute.State.NONE, router.route(LOCAL, source, null, null, false).getState());
+    }
+
+    @Test
+    public void speakerAvatarWithoutRemoteVideo() {
+        FakeStream camera = source.add(LOCAL, MediaStreamType.Camera, true);
+        source.add("remote", MediaStreamType.Camera, false);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, null, "remote", true);
+
+        assertEquals(StreamRoute.State.SPEAKER_AVATAR, route.getState());
+        assertNull(route.getSelectedPeerId());
+        assertSame(camera, route.getSelfStream());
+    }
+
+    @Test
+    public void screenShareWinsOverSelectedCamera() {
+        source.add("selected", MediaStreamType.Camera, true);
+        FakeStream share = source.add("sharer", MediaStreamType.ScreenShare, true);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, "selected", null, true);
+
+        assertEquals(StreamRoute.State.REMOTE_SCREENSHARE, route.getState());
+        assertEquals("sharer", route.getSelectedPeerId());
+        assertSame(share, route.getSelectedStream());
+    }
+
+    @Test
+    public void localScreenShareIsNotDisplayed() {
+        source.add(LOCAL, MediaStreamType.ScreenShare, true);
+        FakeStream camera = source.add("remote", MediaStreamType.Camera, true);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, null, null, true);
+
+        assertEquals(StreamRoute.State.REMOTE_CAMERA, route.getState());
+        assertSame(camera, route.getSelectedStream());
+    }
+
+    @Test
+    public void selectedCameraWinsOverActiveSpeaker() {
+        source.add("speaker", MediaStreamType.Camera, true);
+        FakeStream selected = source.add("selected", MediaStreamType.Camera, true);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, "selected", "speaker", true);
+
+        assertEquals("selected", route.getSelectedPeerId());
+        assertSame(selected, route.getSelectedStream());
+    }
+
+    @Test
+    public void localParticipantIsNeverSelected() {
+        FakeStream local = source.add(LOCAL, MediaStreamType.Camera, true);
+        source.add("remote", MediaStreamType.Camera, true);
+
+        StreamRoute<FakeStream> route = router.route(LOCAL, source, LOCAL, null, true);
+
+        assertEquals(StreamRoute.State.REMOTE_CAMERA, route.getState());
+        assertEquals("remote", route.getSelectedPeerId());
+        assertSame(local, route.getSelfStream());
+    }
+
+    @Test
+    public void displayedCameraIsKeptWhenTheSpeakerChanges() {
+        source.add("first", MediaStreamType.Camera, true);
+        source.add("second", MediaStreamType.Camera, true);
+
+        assertEquals("first", router.route(LOCAL, source, null, "first", true).getSelectedPeerId());
+        assertEquals("first", router.route(LOCAL, source, null, "second", true).getSelectedPeerId());
+    }
+
+    @Test
+    public void resetForgetsTheDisplayedCamera() {
+        source.add("first", MediaStreamType.Camera, true);
+        source.add("second", MediaStreamType.Camera, true);
+
+        router.route(LOCAL, source, null, "first", true);
+        router.reset();
+
+        assertEquals(StreamRoute.State.NONE, router.getCurrent().getState());
+        assertEquals("second", router.route(LOCAL, source, null, "second", true).getSelectedPeerId());
+    }
+
+    @Test
+    public void activeSpeakerWithoutVideoFallsBackToTheFirstCamera() {
+        source.add("speaker", MediaStreamType.Camera, false);
+        source.add("first", MediaStreamType.Camera, true);
+        source.add("second", MediaStreamType.Camera, true);
+
+        assertEquals("first", router.route(LOCAL, source, null, "speaker", true).getSelectedPeerId());
+    }
+
+    @Test
+    public void displayedCameraStoppedSwitchesToTheActiveSpeaker() {
+        source.add("first", MediaStreamType.Camera, true);
+        source.add("speaker", MediaStreamType.Camera, true);
+        router.route(LOCAL, source, null, null, true);
+
+        source.add("first", MediaStreamType.Camera, false);
+
+        assertEquals("speaker", router.route(LOCAL, source, null, "speaker", true).getSelectedPeerId());
+    }
+
+    private static class FakeStream {
+        private final boolean video;
+
+        private FakeStream(boolean video) {
+            this.video = video;
+        }
+    }
+
+    private static class FakeSource implements StreamRouter.StreamSource<FakeStream> {
+        private final HashMap<MediaStreamType, HashMap<String, FakeStream>> streams = new HashMap<>();
+
+        /**
+         * Ids of the participants owning a video, by type, in start order
+         */
+        private final HashMap<MediaStreamType, List<String>> videos = new HashMap<>();
+
+        private FakeStream add(String participantId, MediaStreamType type, boolean video) {
+            FakeStream stream = new FakeStream(video);
+            if (!streams.containsKey(type)) {
+                streams.put(type, new HashMap<String, FakeStream>());
+                videos.put(type, new ArrayList<String>());
+            }
+            streams.get(type).put(participantId, stream);
+
+            List<String> started = videos.get(type);
+            started.remove(participantId);
+            if (video) started.add(participantId);
+            return stream;
+        }
+
+        @Override
+        public FakeStream getStream(String participantId, MediaStreamType type) {
+            HashMap<String, FakeStream> byId = streams.get(type);
+            return null != byId ? byId.get(participantId) : null;
+        }
+
+        @Override
+        public boolean hasVideo(FakeStream stream) {
+            return stream.video;
+        }
+
+        @Override
+        public String getFirstVideo(MediaStreamType type, String excludedId) {
+            List<String> started = videos.get(type);
+            if (null == started) return null;
+
+            for (String participantId : started) {
+                if (!participantId.equals(excludedId)) return participantId;
+            }
+            return null;
+        }
+    }
+}
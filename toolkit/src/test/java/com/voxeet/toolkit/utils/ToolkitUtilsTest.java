@@ -0,0 +1,122 @@
+package com.voxeet.toolkit.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Merge of the participants of the conference with the invited ones, on fake participants
+ */
+public class ToolkitUtilsTest {
+
+    private final static ToolkitUtils.IdProvider<Item> IDS = new ToolkitUtils.IdProvider<Item>() {
+        @Override
+        public String getId(Item item) {
+            return item.id;
+        }
+    };
+
+    private final static int ITERATIONS = 200;
+    private final static int ROUNDS = 5;
+    private final static int MAX_RATIO = 40;
+
+    @Test
+    public void mergeKeepsTheOrder() {
+        Item a = new Item("a");
+        Item b = new Item("b");
+        Item c = new Item("c");
+
+        List<Item> merged = ToolkitUtils.merge(Arrays.asList(a, b), Arrays.asList(c), IDS);
+
+        assertEquals(Arrays.asList(a, b, c), merged);
+    }
+
+    @Test
+    public void mergeKeepsTheFirstParticipantOfAnId() {
+        Item joined = new Item("a");
+        Item invited = new Item("a");
+
+        List<Item> merged = ToolkitUtils.merge(Arrays.asList(joined), Arrays.asList(invited, new Item("b")), IDS);
+
+        assertEquals(2, merged.size());
+        assertSame(joined, merged.get(0));
+    }
+
+    @Test
+    public void mergeComparesTheParticipantsWithoutIdByReference() {
+        Item first = new Item(null);
+        Item second = new Item(null);
+
+        List<Item> merged = ToolkitUtils.merge(Arrays.asList(first, null), Arrays.asList(first, second), IDS);
+
+        assertEquals(Arrays.asList(first, second), merged);
+    }
+
+    @Test
+    public void mergeDoesNotModifyTheLists() {
+        List<Item> joined = new ArrayList<>(Arrays.asList(new Item("a")));
+        List<Item> invited = new ArrayList<>(Arrays.asList(new Item("b")));
+
+        ToolkitUtils.merge(joined, invited, IDS);
+
+        assertEquals(1, joined.size());
+        assertEquals(1, invited.size());
+    }
+
+    /**
+     * Merge a conference with as many invited participants, half of them already in the conference
+     * <p>
+     * The merge must stay linear : 10 times more participants may not cost more than 40 times longer,
+     * a quadratic merge would cost 100 times longer
+     */
+    @Test
+    public void mergeBenchmark() {
+        long small = bestMergeTime(100);
+        long large = bestMergeTime(1000);
+
+        assertTrue("merge of 100 participants " + small + " ns, of 1000 participants " + large + " ns",
+                large < small * MAX_RATIO);
+    }
+
+    /**
+     * @return the shortest time of a merge among the rounds, in nanoseconds
+     */
+    private static long bestMergeTime(int size) {
+        List<Item> joined = items(0, size);
+        List<Item> invited = items(size / 2, size);
+
+        //warm up
+        for (int i = 0; i < ITERATIONS; i++) ToolkitUtils.merge(joined, invited, IDS);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Item> merged = null;
+            for (int i = 0; i < ITERATIONS; i++) merged = ToolkitUtils.merge(joined, invited, IDS);
+            best = Math.min(best, (System.nanoTime() - start) / ITERATIONS);
+
+            assertEquals(size + size / 2, merged.size());
+        }
+        return Math.max(1, best);
+    }
+
+    private static List<Item> items(int from, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) items.add(new Item("participant_" + i));
+        return items;
+    }
+
+    private static class Item {
+        private final String id;
+
+        private Item(String id) {
+            this.id = id;
+        }
+    }
+}